@@ -0,0 +1,66 @@
+package com.wowconsulting;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Executor dedicado para chamadas bloqueantes ao Discord (JDA e OAuth), fora do ForkJoinPool comum
+@Configuration
+public class DiscordExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscordExecutorConfig.class);
+
+    @Value("${discord.executor.virtual-threads:${spring.threads.virtual.enabled:false}}")
+    private boolean virtualThreads;
+
+    @Value("${discord.executor.core-size:4}")
+    private int coreSize;
+
+    @Value("${discord.executor.max-size:16}")
+    private int maxSize;
+
+    @Value("${discord.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean(name = "discordExecutor", destroyMethod = "shutdown")
+    public ExecutorService discordExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = virtualThreads ? createVirtualThreadExecutor() : null;
+        if (executor == null) {
+            executor = boundedExecutor(coreSize, maxSize, queueCapacity);
+        }
+        // Publica executor.queued, executor.active, executor.pool.size e os tempos de espera/execução
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "discord", List.of());
+    }
+
+    // Fila limitada; quando cheia a tarefa é recusada (RejectedExecutionException) e quem chamou recebe um future
+    // com falha. Nunca roda na thread que submeteu: ela pode ser do Tomcat, do JDA, do HttpClient ou do change stream
+    static ThreadPoolExecutor boundedExecutor(int coreSize, int maxSize, int queueCapacity) {
+        return new ThreadPoolExecutor(coreSize, maxSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("discord-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor só existe a partir do Java 21
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads indisponíveis nesta JVM ({}); usando pool limitado para o Discord",
+                    Runtime.version());
+            return null;
+        }
+    }
+}
@@ -29,7 +29,8 @@ public class SecurityConfig {
                     .allowedOrigins("https://wow-consulting-frontend.s3-website-sa-east-1.amazonaws.com",
                      "https://biscoitao.com")
                     .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                    .allowedHeaders("*");
+                    .allowedHeaders("*")
+                    .exposedHeaders("ETag");
             }
         };
     }
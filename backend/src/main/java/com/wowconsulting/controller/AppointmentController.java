@@ -2,16 +2,25 @@ package com.wowconsulting.controller;
 
 import com.wowconsulting.service.AppointmentService;
 import com.wowconsulting.service.AuthService;
+import com.wowconsulting.service.CollectionVersions;
 import com.wowconsulting.model.Appointment;
 import com.wowconsulting.model.User;
 import com.wowconsulting.dto.AppointmentRequest;
 import com.wowconsulting.dto.ApiResponse;
+import com.wowconsulting.dto.ListView;
+import com.wowconsulting.dto.PageResponse;
+import com.wowconsulting.util.EntityTags;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,6 +36,12 @@ public class AppointmentController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
+
     @PostMapping
     public ResponseEntity<ApiResponse<Appointment>> createAppointment(
             @RequestHeader("Authorization") String token,
@@ -50,9 +65,12 @@ public class AppointmentController {
         }
     }
 
+    // ETag pela versão dos agendamentos do usuário: If-None-Match atual responde 304 sem ir ao banco
     @GetMapping("/my")
-    public ResponseEntity<ApiResponse<List<Appointment>>> getMyAppointments(
-            @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> getMyAppointments(
+            @RequestHeader("Authorization") String token,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String view) {
 
         try {
             String jwtToken = token.replace("Bearer ", "");
@@ -63,8 +81,31 @@ public class AppointmentController {
                         .body(ApiResponse.error("Token inválido"));
             }
 
-            List<Appointment> appointments = appointmentService.getUserAppointments(userOpt.get().getDiscordId());
-            return ResponseEntity.ok(ApiResponse.success(appointments));
+            String discordId = userOpt.get().getDiscordId();
+            ListView listView = ListView.parse(view);
+            // A versão é contada por usuário e se repete entre usuários: o dono entra na chave
+            String etagKey = "appointments." + discordId + "." + collectionVersions.appointmentsVersion(discordId)
+                    + "." + listView.name().toLowerCase();
+            Instant now = Instant.now();
+            // Sempre revalida: o usuário precisa ver na hora uma reserva ou cancelamento
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            Optional<String> notModified = EntityTags.findMatch(ifNoneMatch, etagKey, now);
+            if (notModified.isPresent()) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(notModified.get())
+                        .cacheControl(cacheControl)
+                        .varyBy(HttpHeaders.AUTHORIZATION)
+                        .build();
+            }
+
+            List<?> appointments = listView == ListView.SUMMARY
+                    ? appointmentService.getUserAppointmentItems(discordId)
+                    : appointmentService.getUserAppointments(discordId);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of(etagKey, collectionVersions.validUntil(now)))
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .body(ApiResponse.success(appointments));
 
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -73,8 +114,9 @@ public class AppointmentController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Appointment>>> getAllAppointments(
-            @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> getAllAppointments(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String view) {
 
         try {
             String jwtToken = token.replace("Bearer ", "");
@@ -85,7 +127,9 @@ public class AppointmentController {
                         .body(ApiResponse.error("Acesso negado"));
             }
 
-            List<Appointment> appointments = appointmentService.getAllAppointments();
+            List<?> appointments = ListView.parse(view) == ListView.SUMMARY
+                    ? appointmentService.getAllAppointmentItems()
+                    : appointmentService.getAllAppointments();
             return ResponseEntity.ok(ApiResponse.success(appointments));
 
         } catch (Exception e) {
@@ -94,10 +138,53 @@ public class AppointmentController {
         }
     }
 
-    @GetMapping("/upcoming")
-    public ResponseEntity<ApiResponse<List<Appointment>>> getUpcomingAppointments(
+    // Paginação por cursor: ?limit=N e, nas páginas seguintes, ?cursor=<nextCursor>
+    @GetMapping(params = {"limit", "!format"})
+    public ResponseEntity<ApiResponse<PageResponse<?>>> getAllAppointmentsPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view) {
+
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+
+            PageResponse<?> page = ListView.parse(view) == ListView.SUMMARY
+                    ? appointmentService.getAppointmentItemsPage(cursor, limit)
+                    : appointmentService.getAppointmentsPage(cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success(page));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllAppointments(
             @RequestHeader("Authorization") String token) {
 
+        String jwtToken = token.replace("Bearer ", "");
+        Optional<User> userOpt = authService.validateToken(jwtToken);
+
+        if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ndjsonWriter.stream(appointmentService::streamAllAppointments);
+    }
+
+    @GetMapping("/upcoming")
+    public ResponseEntity<ApiResponse<List<?>>> getUpcomingAppointments(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String view) {
+
         try {
             String jwtToken = token.replace("Bearer ", "");
             Optional<User> userOpt = authService.validateToken(jwtToken);
@@ -107,7 +194,9 @@ public class AppointmentController {
                         .body(ApiResponse.error("Acesso negado"));
             }
 
-            List<Appointment> appointments = appointmentService.getUpcomingAppointments();
+            List<?> appointments = ListView.parse(view) == ListView.SUMMARY
+                    ? appointmentService.getUpcomingAppointmentItems()
+                    : appointmentService.getUpcomingAppointments();
             return ResponseEntity.ok(ApiResponse.success(appointments));
 
         } catch (Exception e) {
@@ -165,7 +254,7 @@ public class AppointmentController {
             }
 
             Appointment appointment = appointmentOpt.get();
-            if (!userOpt.get().isAdmin() && !appointment.getUser().getDiscordId().equals(userOpt.get().getDiscordId())) {
+            if (!userOpt.get().isAdmin() && !appointment.getUserSummary().discordId().equals(userOpt.get().getDiscordId())) {
                 return ResponseEntity.status(403)
                         .body(ApiResponse.error("Acesso negado"));
             }
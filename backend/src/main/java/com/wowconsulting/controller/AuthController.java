@@ -3,6 +3,7 @@ package com.wowconsulting.controller;
 import com.wowconsulting.model.User;
 import com.wowconsulting.repository.UserRepository;
 import com.wowconsulting.service.AuthService;
+import com.wowconsulting.service.DiscordOAuthClient;
 import com.wowconsulting.dto.AuthResponse;
 import com.wowconsulting.dto.ApiResponse;
 import com.wowconsulting.dto.UserDTO;
@@ -11,17 +12,13 @@ import com.wowconsulting.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -31,18 +28,14 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
-    @Value("${discord.client-id}")
-    private String discordClientId;
-    @Value("${discord.client-secret}")
-    private String discordClientSecret;
-    @Value("${discord.redirect-uri}")
-    private String discordRedirectUri;
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private DiscordOAuthClient discordOAuthClient;
 
     @PostMapping("/discord")
     public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> authenticateWithDiscord(
@@ -55,7 +48,7 @@ public class AuthController {
         String email = request.get("email");
 
         return authService.authenticateUser(discordId, username, discriminator, avatar, email)
-                .thenApply(authResponse -> {
+                .<ResponseEntity<ApiResponse<AuthResponse>>>thenApply(authResponse -> {
                     if (authResponse.isSuccess()) {
                         // Converte o User para UserDTO para garantir isAdmin no JSON
                         UserDTO userDTO = new UserDTO((User) authResponse.getUser());
@@ -70,7 +63,8 @@ public class AuthController {
                         return ResponseEntity.badRequest()
                                 .body(ApiResponse.error(authResponse.getMessage()));
                     }
-                });
+                })
+                .exceptionally(AuthController::discordBusy);
     }
 
     @PostMapping("/refresh")
@@ -81,60 +75,73 @@ public class AuthController {
         String discordId = request.get("discordId");
 
         return authService.refreshUserPermissions(discordId)
-                .thenApply(success -> ResponseEntity.ok(ApiResponse.success(success)));
+                .thenApply(success -> ResponseEntity.ok(ApiResponse.success(success)))
+                .exceptionally(AuthController::discordBusy);
     }
 
     @GetMapping("/discord/callback")
-    public void discordCallback(@RequestParam("code") String code, HttpServletResponse response) throws Exception {
-        // Troca o code pelo access token
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        String body = "client_id=" + discordClientId +
-                "&client_secret=" + discordClientSecret +
-                "&grant_type=authorization_code" +
-                "&code=" + code +
-                "&redirect_uri=" + discordRedirectUri;
-        HttpEntity<String> request = new HttpEntity<>(body, headers);
-        String tokenUrl = "https://discord.com/api/oauth2/token";
-        String tokenResponse = restTemplate.postForObject(tokenUrl, request, String.class);
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode tokenJson = mapper.readTree(tokenResponse);
-        String accessToken = tokenJson.get("access_token").asText();
-
-        // Busca dados do usuário
-        HttpHeaders userHeaders = new HttpHeaders();
-        userHeaders.setBearerAuth(accessToken);
-        HttpEntity<String> userRequest = new HttpEntity<>(userHeaders);
-        String userUrl = "https://discord.com/api/users/@me";
-        String userResponse = restTemplate.exchange(userUrl, HttpMethod.GET, userRequest, String.class).getBody();
-        JsonNode userJson = mapper.readTree(userResponse);
-
-        String discordId = userJson.get("id").asText();
-        String username = userJson.get("username").asText();
-        String discriminator = userJson.get("discriminator").asText();
-        String avatar = userJson.has("avatar") && !userJson.get("avatar").isNull() ? userJson.get("avatar").asText() : null;
-        String email = userJson.has("email") && !userJson.get("email").isNull() ? userJson.get("email").asText() : null;
-
-        // Autentica/cria usuário e gera JWT
-        AuthResponse authResponse = authService.authenticateUser(discordId, username, discriminator, avatar, email).get();
-        if (!authResponse.isSuccess()) {
-            response.sendRedirect("/login?error=unauthorized");
-            return;
+    public CompletableFuture<ResponseEntity<Void>> discordCallback(@RequestParam("code") String code) {
+        // Chamadas assíncronas ao Discord pelo cliente compartilhado; a thread do servlet é liberada imediatamente
+        return discordOAuthClient.fetchUser(code)
+                .thenCompose(userJson -> {
+                    String discordId = userJson.get("id").asText();
+                    String username = userJson.get("username").asText();
+                    String discriminator = userJson.get("discriminator").asText();
+                    String avatar = userJson.has("avatar") && !userJson.get("avatar").isNull() ? userJson.get("avatar").asText() : null;
+                    String email = userJson.has("email") && !userJson.get("email").isNull() ? userJson.get("email").asText() : null;
+
+                    // Autentica/cria usuário e gera JWT
+                    return authService.authenticateUser(discordId, username, discriminator, avatar, email);
+                })
+                .thenApply(authResponse -> {
+                    if (!authResponse.isSuccess()) {
+                        return ResponseEntity.status(HttpStatus.FOUND)
+                                .location(URI.create("/login?error=unauthorized"))
+                                .<Void>build();
+                    }
+                    String jwt = authResponse.getToken();
+                    // Define cookie HTTP Only (opcional)
+                    ResponseCookie cookie = ResponseCookie.from("token", jwt)
+                            .httpOnly(true)
+                            .secure(Boolean.parseBoolean(System.getenv().getOrDefault("COOKIE_SECURE", "false"))) // true em produção com HTTPS
+                            .path("/")
+                            .maxAge(jwtExpiration / 1000)
+                            .sameSite("Lax")
+                            .build();
+                    // Redireciona para login do frontend com o token na URL
+                    String frontendLoginUrl = System.getenv().getOrDefault("FRONTEND_LOGIN_URL", "http://localhost:3000/login");
+                    return ResponseEntity.status(HttpStatus.FOUND)
+                            .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                            .location(URI.create(frontendLoginUrl + "?token=" + jwt))
+                            .<Void>build();
+                })
+                .exceptionally(error -> {
+                    if (!isRejected(error)) {
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+                    return ResponseEntity.status(HttpStatus.FOUND)
+                            .location(URI.create("/login?error=unavailable"))
+                            .<Void>build();
+                });
+    }
+
+    // Executor do Discord saturado: 503 com Retry-After em vez de 500; demais falhas seguem adiante
+    private static <T> ResponseEntity<ApiResponse<T>> discordBusy(Throwable error) {
+        if (!isRejected(error)) {
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ApiResponse.error("Discord ocupado; tente novamente em instantes"));
+    }
+
+    private static boolean isRejected(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
         }
-        String jwt = authResponse.getToken();
-        // Define cookie HTTP Only (opcional)
-        ResponseCookie cookie = ResponseCookie.from("token", jwt)
-                .httpOnly(true)
-                .secure(Boolean.parseBoolean(System.getenv().getOrDefault("COOKIE_SECURE", "false"))) // true em produção com HTTPS
-                .path("/")
-                .maxAge(jwtExpiration / 1000)
-                .sameSite("Lax")
-                .build();
-        response.setHeader(HttpHeaders.SET_COOKIE, cookie.toString());
-        // Redireciona para login do frontend com o token na URL
-        String frontendLoginUrl = System.getenv().getOrDefault("FRONTEND_LOGIN_URL", "http://localhost:3000/login");
-        response.sendRedirect(frontendLoginUrl + "?token=" + jwt);
+        return false;
     }
 
     @GetMapping("/me")
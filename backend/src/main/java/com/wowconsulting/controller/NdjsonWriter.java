@@ -0,0 +1,44 @@
+package com.wowconsulting.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Escreve um documento JSON por linha à medida que saem do cursor do MongoDB (application/x-ndjson)
+@Component
+public class NdjsonWriter {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int FLUSH_EVERY = 100;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // O Stream só é aberto quando a resposta começa a ser escrita e é sempre fechado ao final
+    public ResponseEntity<StreamingResponseBody> stream(Supplier<? extends Stream<?>> source) {
+        StreamingResponseBody body = out -> {
+            try (Stream<?> documents = source.get()) {
+                Iterator<?> iterator = documents.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+}
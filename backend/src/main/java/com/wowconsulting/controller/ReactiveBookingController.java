@@ -0,0 +1,75 @@
+package com.wowconsulting.controller;
+
+import com.wowconsulting.service.ReactiveBookingService;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.dto.AppointmentRequest;
+import com.wowconsulting.dto.ApiResponse;
+import com.wowconsulting.dto.ListView;
+import com.wowconsulting.dto.TimeSlotListItem;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
+
+// Reserva e disponibilidade sobre o driver reativo (perfil "reactive"). O Spring MVC assina o Mono
+// de forma assíncrona, então a thread do Tomcat é devolvida enquanto o MongoDB responde.
+@RestController
+@RequestMapping("/reactive")
+@Profile("reactive")
+@CrossOrigin(origins = "${cors.allowed-origins}")
+public class ReactiveBookingController {
+
+    @Autowired
+    private ReactiveBookingService bookingService;
+
+    @GetMapping("/timeslots/available")
+    public Mono<ResponseEntity<ApiResponse<List<?>>>> getAvailableTimeSlots(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String view) {
+
+        return bookingService.authenticate(token.replace("Bearer ", ""))
+                .flatMap(user -> bookingService.getAvailableTimeSlots(date))
+                .map(timeSlots -> ListView.parse(view) == ListView.SUMMARY
+                        ? ResponseEntity.ok(ApiResponse.<List<?>>success(timeSlots.stream().map(TimeSlotListItem::of).toList()))
+                        : ResponseEntity.ok(ApiResponse.<List<?>>success(timeSlots)))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(401)
+                        .body(ApiResponse.error("Token inválido"))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage()))));
+    }
+
+    @PostMapping("/appointments")
+    public Mono<ResponseEntity<ApiResponse<Appointment>>> createAppointment(
+            @RequestHeader("Authorization") String token,
+            @Valid @RequestBody AppointmentRequest request) {
+
+        return bookingService.authenticate(token.replace("Bearer ", ""))
+                .flatMap(user -> bookingService.createAppointment(request, user))
+                .map(appointment -> ResponseEntity.ok(ApiResponse.success("Agendamento criado com sucesso", appointment)))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(401)
+                        .body(ApiResponse.error("Token inválido"))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage()))));
+    }
+
+    @GetMapping("/appointments/my")
+    public Mono<ResponseEntity<ApiResponse<List<?>>>> getMyAppointments(
+            @RequestHeader("Authorization") String token) {
+
+        return bookingService.authenticate(token.replace("Bearer ", ""))
+                .flatMap(user -> bookingService.getUserAppointmentItems(user).collectList())
+                .map(items -> ResponseEntity.ok(ApiResponse.<List<?>>success(items)))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(401)
+                        .body(ApiResponse.error("Token inválido"))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage()))));
+    }
+}
@@ -1,22 +1,43 @@
 package com.wowconsulting.controller;
 
+import com.wowconsulting.service.SlotEventBroadcaster;
+import com.wowconsulting.service.SlotReconciliationService;
+import com.wowconsulting.service.TimeSlotAvailabilityIndex;
 import com.wowconsulting.service.TimeSlotService;
 import com.wowconsulting.service.AuthService;
+import com.wowconsulting.service.CollectionVersions;
+import com.wowconsulting.model.ReconciliationRun;
 import com.wowconsulting.model.TimeSlot;
 import com.wowconsulting.model.User;
+import com.wowconsulting.dto.RecurringSlotReport;
+import com.wowconsulting.dto.RecurringTimeSlotRequest;
 import com.wowconsulting.dto.TimeSlotRequest;
 import com.wowconsulting.dto.ApiResponse;
+import com.wowconsulting.dto.ListView;
+import com.wowconsulting.dto.TimeSlotListItem;
+import com.wowconsulting.dto.PageResponse;
+import com.wowconsulting.util.EntityTags;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/timeslots")
@@ -29,10 +50,31 @@ public class TimeSlotController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private TimeSlotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private SlotEventBroadcaster slotEventBroadcaster;
+
+    @Autowired
+    private SlotReconciliationService slotReconciliationService;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
+
+    @Value("${http-cache.available.max-age:5}")
+    private long availableMaxAgeSeconds;
+
+    // Responde 304 sem consultar o índice quando If-None-Match traz o ETag da versão atual dos horários
     @GetMapping("/available")
-    public ResponseEntity<ApiResponse<List<TimeSlot>>> getAvailableTimeSlots(
+    public ResponseEntity<ApiResponse<List<?>>> getAvailableTimeSlots(
             @RequestHeader("Authorization") String token,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String view) {
 
         try {
             String jwtToken = token.replace("Bearer ", "");
@@ -43,14 +85,52 @@ public class TimeSlotController {
                         .body(ApiResponse.error("Token inválido"));
             }
 
+            // A versão é lida antes da consulta: uma escrita no meio só torna o ETag mais antigo que o corpo.
+            // Sem o índice carregado a lista vem do banco, que a versão não acompanha: responde sem ETag
+            ListView listView = ListView.parse(view);
+            boolean versioned = availabilityIndex.isServing();
+            Instant now = Instant.now();
+            String etagKey = "slots." + collectionVersions.timeSlotsVersion() + "." + listView.name().toLowerCase()
+                    + "." + (date != null ? date : "upcoming");
+            CacheControl cacheControl = availableMaxAgeSeconds > 0
+                    ? CacheControl.maxAge(availableMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate().mustRevalidate()
+                    : CacheControl.noCache().cachePrivate();
+            Optional<String> notModified = versioned
+                    ? EntityTags.findMatch(ifNoneMatch, etagKey, now)
+                    : Optional.empty();
+            if (notModified.isPresent()) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(notModified.get())
+                        .cacheControl(cacheControl)
+                        .varyBy(HttpHeaders.AUTHORIZATION)
+                        .build();
+            }
+
             List<TimeSlot> timeSlots;
+            Instant validUntil = collectionVersions.validUntil(now);
             if (date != null) {
                 timeSlots = timeSlotService.getAvailableTimeSlotsForDate(date);
             } else {
+                // A lista perde o primeiro horário quando ele começa, mesmo sem escrita
                 timeSlots = timeSlotService.getAvailableTimeSlots();
+                if (!timeSlots.isEmpty()) {
+                    Instant firstStart = timeSlots.get(0).getStartTime().atZone(ZoneId.systemDefault()).toInstant();
+                    validUntil = validUntil == null || firstStart.isBefore(validUntil) ? firstStart : validUntil;
+                }
             }
 
-            return ResponseEntity.ok(ApiResponse.success(timeSlots));
+            // Os horários livres vêm do índice em memória; a projeção aqui só reduz a resposta
+            List<?> body = listView == ListView.SUMMARY
+                    ? timeSlots.stream().map(TimeSlotListItem::of).toList()
+                    : timeSlots;
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (versioned) {
+                response.eTag(EntityTags.of(etagKey, validUntil));
+            }
+            return response
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .body(ApiResponse.success(body));
 
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -59,8 +139,9 @@ public class TimeSlotController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<TimeSlot>>> getAllTimeSlots(
-            @RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> getAllTimeSlots(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String view) {
 
         try {
             String jwtToken = token.replace("Bearer ", "");
@@ -71,7 +152,9 @@ public class TimeSlotController {
                         .body(ApiResponse.error("Acesso negado"));
             }
 
-            List<TimeSlot> timeSlots = timeSlotService.getAllTimeSlots();
+            List<?> timeSlots = ListView.parse(view) == ListView.SUMMARY
+                    ? timeSlotService.getAllTimeSlotItems()
+                    : timeSlotService.getAllTimeSlots();
             return ResponseEntity.ok(ApiResponse.success(timeSlots));
 
         } catch (Exception e) {
@@ -80,6 +163,48 @@ public class TimeSlotController {
         }
     }
 
+    // Paginação por cursor: ?limit=N e, nas páginas seguintes, ?cursor=<nextCursor>
+    @GetMapping(params = {"limit", "!format"})
+    public ResponseEntity<ApiResponse<PageResponse<?>>> getAllTimeSlotsPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view) {
+
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+
+            PageResponse<?> page = ListView.parse(view) == ListView.SUMMARY
+                    ? timeSlotService.getTimeSlotItemsPage(cursor, limit)
+                    : timeSlotService.getTimeSlotsPage(cursor, limit);
+            return ResponseEntity.ok(ApiResponse.success(page));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllTimeSlots(
+            @RequestHeader("Authorization") String token) {
+
+        String jwtToken = token.replace("Bearer ", "");
+        Optional<User> userOpt = authService.validateToken(jwtToken);
+
+        if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ndjsonWriter.stream(timeSlotService::streamAllTimeSlots);
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<TimeSlot>> createTimeSlot(
             @RequestHeader("Authorization") String token,
@@ -127,6 +252,30 @@ public class TimeSlotController {
         }
     }
 
+    @PostMapping("/recurring/bulk")
+    public ResponseEntity<ApiResponse<RecurringSlotReport>> createRecurringTimeSlotsBulk(
+            @RequestHeader("Authorization") String token,
+            @Valid @RequestBody RecurringTimeSlotRequest request) {
+
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+
+            RecurringSlotReport report = timeSlotService.createRecurringTimeSlots(request, userOpt.get());
+            return ResponseEntity.ok(ApiResponse.success(
+                    report.getAccepted() + " horários recorrentes criados", report));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<TimeSlot>> updateTimeSlot(
             @RequestHeader("Authorization") String token,
@@ -174,8 +323,110 @@ public class TimeSlotController {
         }
     }
 
+    // Dispara a reconciliação em segundo plano (dryRun=true só conta o que seria corrigido) e responde 202 com a execução
     @PostMapping("/fix-inconsistencies")
-    public ResponseEntity<ApiResponse<String>> fixInconsistencies(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<ReconciliationRun>> fixInconsistencies(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+            ReconciliationRun run = slotReconciliationService.start(dryRun);
+            return ResponseEntity.accepted()
+                    .body(ApiResponse.success("Reconciliação iniciada", run));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Progresso e resultado (contagens por tipo de inconsistência) de uma reconciliação
+    @GetMapping("/fix-inconsistencies/{runId}")
+    public ResponseEntity<ApiResponse<ReconciliationRun>> getReconciliationRun(
+            @RequestHeader("Authorization") String token,
+            @PathVariable String runId) {
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+            Optional<ReconciliationRun> runOpt = slotReconciliationService.getRun(runId);
+            if (runOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(ApiResponse.success(runOpt.get()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Executa a limpeza de horários livres expirados na hora e informa quantos foram removidos
+    @PostMapping("/cleanup-expired")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> cleanupExpired(@RequestHeader("Authorization") String token) {
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+            int removed = timeSlotService.deleteExpiredEmptyTimeSlots();
+            return ResponseEntity.ok(ApiResponse.success("Horários expirados removidos", Map.of("removed", removed)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Alterações dos horários em tempo real (text/event-stream). O EventSource do navegador não envia
+    // cabeçalhos, então o token também é aceito pelo cookie "token" (nunca pela URL, que vai para os logs)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSlotEvents(
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @CookieValue(value = "token", required = false) String cookieToken) {
+
+        String jwtToken = token != null ? token.replace("Bearer ", "") : cookieToken;
+        if (jwtToken == null || authService.validateToken(jwtToken).isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(slotEventBroadcaster.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).build();
+        }
+    }
+
+    @GetMapping("/availability-index")
+    public ResponseEntity<ApiResponse<TimeSlotAvailabilityIndex.Stats>> getAvailabilityIndexStats(
+            @RequestHeader("Authorization") String token) {
+        try {
+            String jwtToken = token.replace("Bearer ", "");
+            Optional<User> userOpt = authService.validateToken(jwtToken);
+            if (userOpt.isEmpty() || !userOpt.get().isAdmin()) {
+                return ResponseEntity.status(403)
+                        .body(ApiResponse.error("Acesso negado"));
+            }
+            return ResponseEntity.ok(ApiResponse.success(availabilityIndex.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/availability-index/reload")
+    public ResponseEntity<ApiResponse<TimeSlotAvailabilityIndex.Stats>> reloadAvailabilityIndex(
+            @RequestHeader("Authorization") String token) {
         try {
             String jwtToken = token.replace("Bearer ", "");
             Optional<User> userOpt = authService.validateToken(jwtToken);
@@ -183,11 +434,11 @@ public class TimeSlotController {
                 return ResponseEntity.status(403)
                         .body(ApiResponse.error("Acesso negado"));
             }
-            timeSlotService.fixInconsistentTimeSlots();
-            return ResponseEntity.ok(ApiResponse.success("Horários corrigidos com sucesso", "OK"));
+            availabilityIndex.rebuild();
+            return ResponseEntity.ok(ApiResponse.success("Índice recarregado com sucesso", availabilityIndex.getStats()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
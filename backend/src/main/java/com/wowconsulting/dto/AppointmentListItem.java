@@ -0,0 +1,18 @@
+package com.wowconsulting.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.UserSummary;
+
+import java.time.LocalDateTime;
+
+// Projeção usada nas listas (?view=summary): o MongoDB só devolve estes campos
+public record AppointmentListItem(
+        String id,
+        LocalDateTime scheduledTime,
+        Appointment.AppointmentStatus status,
+        String characterClass,
+        String specialization,
+        @JsonProperty("user") UserSummary userSummary
+) {
+}
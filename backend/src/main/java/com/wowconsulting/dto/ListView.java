@@ -0,0 +1,19 @@
+package com.wowconsulting.dto;
+
+// Forma das listagens: FULL devolve a entidade inteira, SUMMARY só os campos exibidos nas listas
+public enum ListView {
+    FULL,
+    SUMMARY;
+
+    public static ListView parse(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        for (ListView view : values()) {
+            if (view.name().equalsIgnoreCase(value.trim())) {
+                return view;
+            }
+        }
+        throw new IllegalArgumentException("Visualização inválida: " + value);
+    }
+}
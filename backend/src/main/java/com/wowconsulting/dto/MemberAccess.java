@@ -0,0 +1,11 @@
+package com.wowconsulting.dto;
+
+import java.util.List;
+
+// Resultado único da resolução de um membro da guild: presença, cargo obrigatório, admin e cargos
+public record MemberAccess(boolean inGuild, boolean hasRequiredRole, boolean isAdmin, List<String> roleIds) {
+
+    public static MemberAccess notInGuild() {
+        return new MemberAccess(false, false, false, List.of());
+    }
+}
@@ -0,0 +1,36 @@
+package com.wowconsulting.dto;
+
+import com.wowconsulting.util.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class PageResponse<T> {
+    public static final int MAX_LIMIT = 200;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public PageResponse(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // `fetched` deve conter até limit + 1 itens: o excedente só indica que existe uma próxima página
+    public static <T> PageResponse<T> of(List<T> fetched, int limit, Function<T, KeysetCursor> cursorOf) {
+        if (fetched.size() <= limit) {
+            return new PageResponse<>(fetched, null);
+        }
+        List<T> page = fetched.subList(0, limit);
+        return new PageResponse<>(page, cursorOf.apply(page.get(limit - 1)).encode());
+    }
+
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    // Getters
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,33 @@
+package com.wowconsulting.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Resultado da criação em lote: uma entrada por horário candidato gerado pela regra
+public class RecurringSlotReport {
+    private final List<Entry> entries;
+
+    public enum Outcome {
+        ACCEPTED,
+        CONFLICT,
+        PAST
+    }
+
+    public record Entry(LocalDateTime startTime, LocalDateTime endTime, Outcome outcome, String slotId) {
+    }
+
+    public RecurringSlotReport(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    // Getters
+    public List<Entry> getEntries() { return entries; }
+
+    public long getAccepted() { return count(Outcome.ACCEPTED); }
+    public long getConflicts() { return count(Outcome.CONFLICT); }
+    public long getSkippedPast() { return count(Outcome.PAST); }
+
+    private long count(Outcome outcome) {
+        return entries.stream().filter(entry -> entry.outcome() == outcome).count();
+    }
+}
@@ -0,0 +1,70 @@
+package com.wowconsulting.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Regra de recorrência: a partir de startDate, por `weeks` semanas, nos dias `weekdays`,
+// cria um horário para cada item de `slots`
+public class RecurringTimeSlotRequest {
+    @NotNull
+    private LocalDate startDate;
+
+    @Min(1)
+    @Max(52)
+    private int weeks = 4;
+
+    // Vazio = mesmo dia da semana de startDate
+    private List<DayOfWeek> weekdays;
+
+    @NotEmpty
+    @Valid
+    private List<SlotTime> slots;
+
+    private String description;
+
+    public static class SlotTime {
+        @NotNull
+        private LocalTime startTime;
+
+        @NotNull
+        private LocalTime endTime; // Se não for posterior a startTime, termina no dia seguinte
+
+        public SlotTime() {
+        }
+
+        public SlotTime(LocalTime startTime, LocalTime endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        public LocalTime getStartTime() { return startTime; }
+        public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+
+        public LocalTime getEndTime() { return endTime; }
+        public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+    }
+
+    // Getters and Setters
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public int getWeeks() { return weeks; }
+    public void setWeeks(int weeks) { this.weeks = weeks; }
+
+    public List<DayOfWeek> getWeekdays() { return weekdays; }
+    public void setWeekdays(List<DayOfWeek> weekdays) { this.weekdays = weekdays; }
+
+    public List<SlotTime> getSlots() { return slots; }
+    public void setSlots(List<SlotTime> slots) { this.slots = slots; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
@@ -0,0 +1,28 @@
+package com.wowconsulting.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.model.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+// Alteração de um horário enviada aos clientes conectados em /timeslots/events.
+// Só o necessário para atualizar a lista sem refazer a consulta; campos nulos são omitidos.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SlotDelta(String type, String id, LocalDateTime start, LocalDateTime end, Boolean available) {
+
+    public static SlotDelta of(TimeSlotChangedEvent event) {
+        String type = event.getType().name().toLowerCase(Locale.ROOT);
+        TimeSlot slot = event.getSlot();
+        if (slot == null) {
+            return new SlotDelta(type, event.getSlotId(), null, null, null);
+        }
+        Boolean available = switch (event.getType()) {
+            case TAKEN -> false;
+            case RELEASED, CREATED -> true;
+            default -> slot.isAvailable();
+        };
+        return new SlotDelta(type, event.getSlotId(), slot.getStartTime(), slot.getEndTime(), available);
+    }
+}
@@ -0,0 +1,21 @@
+package com.wowconsulting.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.wowconsulting.model.TimeSlot;
+
+import java.time.LocalDateTime;
+
+// Projeção usada nas listas (?view=summary): o MongoDB só devolve estes campos
+public record TimeSlotListItem(
+        String id,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        @JsonProperty("available") boolean isAvailable,
+        String description
+) {
+    // Para horários que já estão em memória (índice de disponibilidade)
+    public static TimeSlotListItem of(TimeSlot slot) {
+        return new TimeSlotListItem(slot.getId(), slot.getStartTime(), slot.getEndTime(),
+                slot.isAvailable(), slot.getDescription());
+    }
+}
@@ -0,0 +1,43 @@
+package com.wowconsulting.event;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+import java.time.Instant;
+
+// Publicado pelo ChangeStreamListener para cada alteração observada no MongoDB, inclusive as feitas por
+// outras instâncias. Tipado pelo documento: assine com @EventListener(MongoChangeEvent<TimeSlot>) etc.
+public class MongoChangeEvent<T> implements ResolvableTypeProvider {
+
+    public enum Operation {
+        UPSERT,     // insert, update ou replace; document traz o estado atual
+        DELETE,
+        INVALIDATE  // coleção removida ou histórico perdido: caches devem recarregar do banco
+    }
+
+    private final Class<T> documentType;
+    private final Operation operation;
+    private final String documentId;
+    private final T document;
+    private final Instant clusterTime;
+
+    public MongoChangeEvent(Class<T> documentType, Operation operation, String documentId, T document, Instant clusterTime) {
+        this.documentType = documentType;
+        this.operation = operation;
+        this.documentId = documentId;
+        this.document = document;
+        this.clusterTime = clusterTime;
+    }
+
+    @Override
+    public ResolvableType getResolvableType() {
+        return ResolvableType.forClassWithGenerics(getClass(), documentType);
+    }
+
+    // Getters
+    public Class<T> getDocumentType() { return documentType; }
+    public Operation getOperation() { return operation; }
+    public String getDocumentId() { return documentId; }
+    public T getDocument() { return document; }
+    public Instant getClusterTime() { return clusterTime; }
+}
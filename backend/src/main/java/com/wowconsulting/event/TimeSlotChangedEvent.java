@@ -0,0 +1,38 @@
+package com.wowconsulting.event;
+
+import com.wowconsulting.model.TimeSlot;
+
+// Publicado pelos serviços sempre que um horário é criado, alterado, reservado, liberado ou removido
+public class TimeSlotChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        TAKEN,
+        RELEASED,
+        DELETED
+    }
+
+    private final ChangeType type;
+    private final String slotId;
+    private final TimeSlot slot; // Estado após a alteração (null em DELETED)
+
+    public TimeSlotChangedEvent(ChangeType type, String slotId, TimeSlot slot) {
+        this.type = type;
+        this.slotId = slotId;
+        this.slot = slot;
+    }
+
+    public static TimeSlotChangedEvent of(ChangeType type, TimeSlot slot) {
+        return new TimeSlotChangedEvent(type, slot.getId(), slot);
+    }
+
+    public static TimeSlotChangedEvent deleted(String slotId) {
+        return new TimeSlotChangedEvent(ChangeType.DELETED, slotId, null);
+    }
+
+    // Getters
+    public ChangeType getType() { return type; }
+    public String getSlotId() { return slotId; }
+    public TimeSlot getSlot() { return slot; }
+}
@@ -1,5 +1,8 @@
 package com.wowconsulting.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
@@ -15,10 +18,13 @@ public class Appointment {
     @Id
     private String id;
 
-    @DBRef
+    @DBRef(lazy = true)
     @NotNull
+    @JsonIgnore
     private User user;
 
+    private UserSummary userSummary; // Serializado como "user"; evita uma consulta em users por agendamento
+
     @NotNull
     private LocalDateTime scheduledTime;
 
@@ -49,6 +55,7 @@ public class Appointment {
 
     private AppointmentStatus status;
     private String notes;
+    private LocalDateTime reminderSentAt; // Preenchido uma única vez quando o lembrete é enfileirado
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -84,6 +91,16 @@ public class Appointment {
 
     public void setUser(User user) {
         this.user = user;
+        this.userSummary = UserSummary.of(user);
+    }
+
+    @JsonProperty("user")
+    public UserSummary getUserSummary() {
+        return userSummary;
+    }
+
+    public void setUserSummary(UserSummary userSummary) {
+        this.userSummary = userSummary;
     }
 
     public LocalDateTime getScheduledTime() {
@@ -166,6 +183,14 @@ public class Appointment {
         this.notes = notes;
     }
 
+    public LocalDateTime getReminderSentAt() {
+        return reminderSentAt;
+    }
+
+    public void setReminderSentAt(LocalDateTime reminderSentAt) {
+        this.reminderSentAt = reminderSentAt;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
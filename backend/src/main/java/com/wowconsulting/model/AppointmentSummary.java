@@ -0,0 +1,13 @@
+package com.wowconsulting.model;
+
+// Resumo do agendamento guardado no horário reservado (só campos que não mudam após a criação)
+public record AppointmentSummary(String id, UserSummary user, String characterClass, String specialization) {
+
+    public static AppointmentSummary of(Appointment appointment) {
+        if (appointment == null) {
+            return null;
+        }
+        return new AppointmentSummary(appointment.getId(), appointment.getUserSummary(),
+                appointment.getCharacterClass(), appointment.getSpecialization());
+    }
+}
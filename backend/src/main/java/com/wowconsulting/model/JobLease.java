@@ -0,0 +1,79 @@
+package com.wowconsulting.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Lease de um job agendado: só a instância dona (owner) com o lease válido executa o job.
+// fencingToken cresce a cada troca de dono; só renew e o registro de fim de execução o conferem.
+// As escritas dos jobs (outras coleções, sem transação) não o conferem: ver LeasedJobRunner.
+@Document(collection = "job_leases")
+public class JobLease {
+    @Id
+    private String id; // nome do job
+
+    private String owner;
+    private long fencingToken;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime lastRunStartedAt;
+    private LocalDateTime lastRunFinishedAt;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public void setAcquiredAt(LocalDateTime acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+
+    public LocalDateTime getLastRunStartedAt() {
+        return lastRunStartedAt;
+    }
+
+    public void setLastRunStartedAt(LocalDateTime lastRunStartedAt) {
+        this.lastRunStartedAt = lastRunStartedAt;
+    }
+
+    public LocalDateTime getLastRunFinishedAt() {
+        return lastRunFinishedAt;
+    }
+
+    public void setLastRunFinishedAt(LocalDateTime lastRunFinishedAt) {
+        this.lastRunFinishedAt = lastRunFinishedAt;
+    }
+}
@@ -0,0 +1,173 @@
+package com.wowconsulting.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Mensagem pendente de envio ao Discord (outbox). Os serviços apenas gravam aqui;
+// o NotificationDispatcher envia em lotes, com retry e agrupamento por destinatário.
+@Document(collection = "notification_outbox")
+public class Notification {
+    @Id
+    private String id;
+
+    private Target target;
+    private String recipientId; // discordId do usuário quando target = DIRECT_MESSAGE
+    private String content;
+
+    private Status status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime lockedUntil;
+    private String claimToken;
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+    private LocalDateTime purgeAt; // definido ao chegar em SENT ou FAILED; o índice TTL remove o documento nesse horário
+
+    public enum Target {
+        APPOINTMENTS_CHANNEL,
+        GUILD_OWNER,
+        DIRECT_MESSAGE
+    }
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+
+    // Constructors
+    public Notification() {
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.status = Status.PENDING;
+    }
+
+    public Notification(Target target, String recipientId, String content) {
+        this();
+        this.target = target;
+        this.recipientId = recipientId;
+        this.content = content;
+    }
+
+    public static Notification appointmentCreated(String appointmentInfo) {
+        return new Notification(Target.APPOINTMENTS_CHANNEL, null, "🗓️ **Nova Consultoria Agendada!**\n" + appointmentInfo);
+    }
+
+    public static Notification appointmentCreatedForOwner(String appointmentInfo) {
+        return new Notification(Target.GUILD_OWNER, null, "🗓️ **Novo agendamento criado!**\n" + appointmentInfo);
+    }
+
+    public static Notification reminder(String discordId, String appointmentInfo) {
+        return new Notification(Target.DIRECT_MESSAGE, discordId, "⏰ **Lembrete de Consultoria**\n" + appointmentInfo);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    public String getRecipientId() {
+        return recipientId;
+    }
+
+    public void setRecipientId(String recipientId) {
+        this.recipientId = recipientId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public LocalDateTime getPurgeAt() {
+        return purgeAt;
+    }
+
+    public void setPurgeAt(LocalDateTime purgeAt) {
+        this.purgeAt = purgeAt;
+    }
+}
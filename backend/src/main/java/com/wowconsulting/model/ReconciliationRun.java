@@ -0,0 +1,164 @@
+package com.wowconsulting.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Execução da reconciliação de horários (SlotReconciliationService). Gravada no início e atualizada a cada
+// fase, para que GET /timeslots/fix-inconsistencies/{id} mostre o progresso em qualquer instância.
+@Document(collection = "slot_reconciliation_runs")
+public class ReconciliationRun {
+    @Id
+    private String id;
+
+    private boolean dryRun;
+    private Status status;
+    private String phase;
+    private String instanceId;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    // Em dry-run são as quantidades que seriam corrigidas
+    private long unavailableWithoutAppointment; // ocupados sem agendamento -> liberados
+    private long availableWithAppointment;      // livres com agendamento -> marcados como ocupados
+    private long cancelledAppointment;          // apontando para agendamento CANCELLED -> liberados
+    private long missingAppointment;            // apontando para agendamento inexistente -> liberados
+    private long scannedBookedSlots;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        SKIPPED
+    }
+
+    // Constructors
+    public ReconciliationRun() {
+    }
+
+    public ReconciliationRun(boolean dryRun, String instanceId) {
+        this.dryRun = dryRun;
+        this.instanceId = instanceId;
+        this.status = Status.RUNNING;
+        this.phase = "pending";
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public long getTotalFixed() {
+        return unavailableWithoutAppointment + availableWithAppointment + cancelledAppointment + missingAppointment;
+    }
+
+    public void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        this.phase = "done";
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getUnavailableWithoutAppointment() {
+        return unavailableWithoutAppointment;
+    }
+
+    public void setUnavailableWithoutAppointment(long unavailableWithoutAppointment) {
+        this.unavailableWithoutAppointment = unavailableWithoutAppointment;
+    }
+
+    public long getAvailableWithAppointment() {
+        return availableWithAppointment;
+    }
+
+    public void setAvailableWithAppointment(long availableWithAppointment) {
+        this.availableWithAppointment = availableWithAppointment;
+    }
+
+    public long getCancelledAppointment() {
+        return cancelledAppointment;
+    }
+
+    public void setCancelledAppointment(long cancelledAppointment) {
+        this.cancelledAppointment = cancelledAppointment;
+    }
+
+    public long getMissingAppointment() {
+        return missingAppointment;
+    }
+
+    public void setMissingAppointment(long missingAppointment) {
+        this.missingAppointment = missingAppointment;
+    }
+
+    public long getScannedBookedSlots() {
+        return scannedBookedSlots;
+    }
+
+    public void setScannedBookedSlots(long scannedBookedSlots) {
+        this.scannedBookedSlots = scannedBookedSlots;
+    }
+}
@@ -1,5 +1,8 @@
 package com.wowconsulting.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
@@ -15,12 +18,18 @@ public class TimeSlot {
     private LocalDateTime endTime;
     private boolean isAvailable;
 
-    @DBRef
+    @DBRef(lazy = true)
+    @JsonIgnore
     private User createdBy; // Admin que criou o horário
 
-    @DBRef
+    @DBRef(lazy = true)
+    @JsonIgnore
     private Appointment appointment; // Referência ao agendamento, se houver
 
+    // Cópias serializadas como "createdBy" e "appointment"; listar horários não resolve nenhum @DBRef
+    private UserSummary createdBySummary;
+    private AppointmentSummary appointmentSummary;
+
     private String description;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -36,7 +45,7 @@ public class TimeSlot {
         this();
         this.startTime = startTime;
         this.endTime = endTime;
-        this.createdBy = createdBy;
+        setCreatedBy(createdBy);
     }
 
     // Getters and Setters
@@ -78,6 +87,16 @@ public class TimeSlot {
 
     public void setCreatedBy(User createdBy) {
         this.createdBy = createdBy;
+        this.createdBySummary = UserSummary.of(createdBy);
+    }
+
+    @JsonProperty("createdBy")
+    public UserSummary getCreatedBySummary() {
+        return createdBySummary;
+    }
+
+    public void setCreatedBySummary(UserSummary createdBySummary) {
+        this.createdBySummary = createdBySummary;
     }
 
     public Appointment getAppointment() {
@@ -86,6 +105,16 @@ public class TimeSlot {
 
     public void setAppointment(Appointment appointment) {
         this.appointment = appointment;
+        this.appointmentSummary = AppointmentSummary.of(appointment);
+    }
+
+    @JsonProperty("appointment")
+    public AppointmentSummary getAppointmentSummary() {
+        return appointmentSummary;
+    }
+
+    public void setAppointmentSummary(AppointmentSummary appointmentSummary) {
+        this.appointmentSummary = appointmentSummary;
     }
 
     public String getDescription() {
@@ -0,0 +1,12 @@
+package com.wowconsulting.model;
+
+// Dados do usuário copiados para dentro de agendamentos e horários, para listar sem resolver o @DBRef
+public record UserSummary(String id, String discordId, String username, String avatar) {
+
+    public static UserSummary of(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserSummary(user.getId(), user.getDiscordId(), user.getUsername(), user.getAvatar());
+    }
+}
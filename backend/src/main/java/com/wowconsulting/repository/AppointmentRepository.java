@@ -8,10 +8,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends MongoRepository<Appointment, String> {
+public interface AppointmentRepository extends MongoRepository<Appointment, String>, AppointmentRepositoryCustom {
     List<Appointment> findByUser_IdOrderByScheduledTimeDesc(String userId);
+    <T> List<T> findByUser_IdOrderByScheduledTimeDesc(String userId, Class<T> type);
     List<Appointment> findAllByOrderByScheduledTimeDesc();
+    <T> List<T> findAllByOrderByScheduledTimeDesc(Class<T> type);
     List<Appointment> findByScheduledTimeAfterOrderByScheduledTime(LocalDateTime dateTime);
+    <T> List<T> findByScheduledTimeAfterOrderByScheduledTime(LocalDateTime dateTime, Class<T> type);
     List<Appointment> findByScheduledTimeBetweenAndStatus(
             LocalDateTime start,
             LocalDateTime end,
@@ -20,4 +23,9 @@ public interface AppointmentRepository extends MongoRepository<Appointment, Stri
     List<Appointment> findByStatus(Appointment.AppointmentStatus status);
     List<Appointment> findByScheduledTimeBetween(LocalDateTime start, LocalDateTime end);
     long countByStatus(Appointment.AppointmentStatus status);
+    List<Appointment> findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter(
+            Appointment.AppointmentStatus status,
+            LocalDateTime dateTime
+    );
+    List<Appointment> findByUpdatedAtAfter(LocalDateTime dateTime);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.util.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface AppointmentRepositoryCustom {
+    // Marca o lembrete como enviado somente se ainda não foi marcado (garante envio único)
+    boolean markReminderSent(String appointmentId, LocalDateTime sentAt);
+
+    // Página ordenada por (scheduledTime, id) decrescente, começando logo após `after` (null = início).
+    // `type` pode ser Appointment ou uma projeção (só os campos dela são lidos do banco)
+    <T> List<T> findPageOrderByScheduledTimeDesc(KeysetCursor after, int limit, Class<T> type);
+
+    // Percorre o cursor do MongoDB sem materializar a coleção; o chamador deve fechar o Stream
+    Stream<Appointment> streamAllOrderByScheduledTimeDesc();
+
+    // Status dos agendamentos informados (ids inexistentes ficam de fora); lê apenas _id e status
+    Map<String, Appointment.AppointmentStatus> findStatusesByIds(Collection<String> ids);
+
+    // Atualiza a cópia do usuário em todos os seus agendamentos após mudança de nome/avatar
+    void refreshUserSummary(UserSummary user);
+}
@@ -0,0 +1,74 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.util.KeysetCursor;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    private static final Sort BY_SCHEDULED_TIME_DESC = Sort.by(Sort.Direction.DESC, "scheduledTime", "id");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean markReminderSent(String appointmentId, LocalDateTime sentAt) {
+        Query query = new Query(Criteria.where("_id").is(appointmentId)
+                .and("status").is(Appointment.AppointmentStatus.SCHEDULED)
+                .and("reminderSentAt").is(null));
+        Update update = new Update().set("reminderSentAt", sentAt);
+        return mongoTemplate.updateFirst(query, update, Appointment.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public <T> List<T> findPageOrderByScheduledTimeDesc(KeysetCursor after, int limit, Class<T> type) {
+        Query query = new Query().with(BY_SCHEDULED_TIME_DESC).limit(limit);
+        if (after != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("scheduledTime").lt(after.time()),
+                    Criteria.where("scheduledTime").is(after.time()).and("_id").lt(toObjectId(after.id()))
+            ));
+        }
+        return mongoTemplate.query(Appointment.class).as(type).matching(query).all();
+    }
+
+    @Override
+    public Stream<Appointment> streamAllOrderByScheduledTimeDesc() {
+        return mongoTemplate.stream(new Query().with(BY_SCHEDULED_TIME_DESC), Appointment.class);
+    }
+
+    @Override
+    public Map<String, Appointment.AppointmentStatus> findStatusesByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("status");
+        return mongoTemplate.find(query, Appointment.class).stream()
+                .filter(appointment -> appointment.getStatus() != null)
+                .collect(Collectors.toMap(Appointment::getId, Appointment::getStatus));
+    }
+
+    @Override
+    public void refreshUserSummary(UserSummary user) {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("user.$id").is(toObjectId(user.id()))),
+                new Update().set("userSummary", user), Appointment.class);
+    }
+
+    private Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
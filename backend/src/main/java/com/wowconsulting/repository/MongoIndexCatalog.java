@@ -0,0 +1,117 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// Catálogo de índices das consultas dos repositórios, criados na inicialização (auto-index-creation fica desligado).
+// Ordem das chaves: igualdade, ordenação, intervalo. Os nomes dos campos são os gravados no MongoDB.
+@Component
+public class MongoIndexCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexCatalog.class);
+
+    private static final List<Entry> ENTRIES = List.of(
+            // findByIsAvailableTrueAndStartTime{After,Between}OrderByStartTime, reconciliação por isAvailable
+            entry(TimeSlot.class, new Index().on("isAvailable", Direction.ASC).on("startTime", Direction.ASC)
+                    .named("isAvailable_startTime")),
+            // Sobreposição (startTime < end AND endTime > start), findAllByOrderByStartTime, findByStartTimeBetween
+            entry(TimeSlot.class, new Index().on("startTime", Direction.ASC).on("endTime", Direction.ASC)
+                    .named("startTime_endTime")),
+            // Paginação por cursor e streaming (startTime, _id)
+            entry(TimeSlot.class, new Index().on("startTime", Direction.ASC).on("_id", Direction.ASC)
+                    .named("startTime_id")),
+            // findActiveIntervals, deleteExpiredAvailable
+            entry(TimeSlot.class, new Index().on("endTime", Direction.ASC).named("endTime")),
+            // findByAppointmentId, releaseSlot, releaseSlotForAppointment, releaseSlots, streamAppointmentRefs
+            entry(TimeSlot.class, new Index().on("appointment.$id", Direction.ASC).named("appointment_ref")),
+            // findByCreatedBySummaryDiscordIdOrderByStartTime
+            entry(TimeSlot.class, new Index().on("createdBySummary.discordId", Direction.ASC).on("startTime", Direction.ASC)
+                    .named("createdBySummary_discordId_startTime")),
+            // refreshUserSummary
+            entry(TimeSlot.class, new Index().on("createdBy.$id", Direction.ASC).named("createdBy_ref")),
+            entry(TimeSlot.class, new Index().on("appointmentSummary.user._id", Direction.ASC)
+                    .named("appointmentSummary_user")),
+
+            // findByUser_IdOrderByScheduledTimeDesc, refreshUserSummary
+            entry(Appointment.class, new Index().on("user.$id", Direction.ASC).on("scheduledTime", Direction.DESC)
+                    .named("user_scheduledTime")),
+            // findAllByOrderByScheduledTimeDesc, findByScheduledTime{After,Between}, paginação (scheduledTime, _id)
+            entry(Appointment.class, new Index().on("scheduledTime", Direction.ASC).on("_id", Direction.ASC)
+                    .named("scheduledTime_id")),
+            // findByScheduledTimeBetweenAndStatus, findByStatus, countByStatus
+            entry(Appointment.class, new Index().on("status", Direction.ASC).on("scheduledTime", Direction.ASC)
+                    .named("status_scheduledTime")),
+            // findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter (carga da fila de lembretes)
+            entry(Appointment.class, new Index().on("status", Direction.ASC).on("reminderSentAt", Direction.ASC)
+                    .on("scheduledTime", Direction.ASC).named("status_reminderSentAt_scheduledTime")),
+            // findByUpdatedAtAfter (sincronização incremental dos lembretes)
+            entry(Appointment.class, new Index().on("updatedAt", Direction.ASC).named("updatedAt")),
+
+            // findByDiscordId (mesmo nome do @Indexed para não conflitar com índices já criados)
+            entry(User.class, new Index().on("discordId", Direction.ASC).unique().named("discordId")),
+            entry(User.class, new Index().on("isActive", Direction.ASC).named("isActive")),
+            entry(User.class, new Index().on("isAdmin", Direction.ASC).named("isAdmin")),
+
+            // Reserva do outbox: um índice para cada ramo do $or (pendentes vencidas / reservas expiradas)
+            entry(Notification.class, new Index().on("status", Direction.ASC).on("nextAttemptAt", Direction.ASC)
+                    .named("status_nextAttemptAt")),
+            entry(Notification.class, new Index().on("status", Direction.ASC).on("lockedUntil", Direction.ASC)
+                    .named("status_lockedUntil")),
+            // findByClaimTokenOrderByCreatedAt
+            entry(Notification.class, new Index().on("claimToken", Direction.ASC).on("createdAt", Direction.ASC)
+                    .named("claimToken_createdAt")),
+            // Retenção: TTL sobre purgeAt (expireAfter 0), preenchido só em SENT/FAILED com notifications.retention
+            entry(Notification.class, new Index().on("purgeAt", Direction.ASC).expire(Duration.ZERO)
+                    .named("purgeAt_ttl"))
+    );
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public static List<Entry> entries() {
+        return ENTRIES;
+    }
+
+    // Roda antes dos demais ouvintes de ApplicationReadyEvent (índices em memória, migrações)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        int failures = 0;
+        for (Entry entry : ENTRIES) {
+            String collection = mongoTemplate.getCollectionName(entry.entity());
+            try {
+                // Operações pela coleção (sem mapeamento da entidade): as chaves já são os nomes gravados
+                mongoTemplate.indexOps(collection).ensureIndex(entry.index());
+            } catch (RuntimeException e) {
+                failures++;
+                log.warn("Não foi possível criar o índice {} em {}: {}",
+                        entry.index().getIndexOptions().getString("name"), collection, e.getMessage());
+            }
+        }
+        log.info("Índices verificados: {} de {}", ENTRIES.size() - failures, ENTRIES.size());
+    }
+
+    private static Entry entry(Class<?> entity, Index index) {
+        return new Entry(entity, index);
+    }
+
+    public record Entry(Class<?> entity, Index index) {
+    }
+}
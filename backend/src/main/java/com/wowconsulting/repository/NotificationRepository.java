@@ -0,0 +1,14 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Notification;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends MongoRepository<Notification, String> {
+    List<Notification> findByClaimTokenOrderByCreatedAt(String claimToken);
+    long countByStatus(Notification.Status status);
+    long deleteByIdAndStatus(String id, Notification.Status status);
+}
@@ -0,0 +1,12 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+// Variante reativa de AppointmentRepository, ativa apenas no perfil "reactive"
+@Repository
+public interface ReactiveAppointmentRepository extends ReactiveMongoRepository<Appointment, String> {
+    <T> Flux<T> findByUser_IdOrderByScheduledTimeDesc(String userId, Class<T> type);
+}
@@ -0,0 +1,10 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Notification;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+// Gravação do outbox pelo fluxo reativo; o NotificationDispatcher continua lendo pelo repositório bloqueante
+@Repository
+public interface ReactiveNotificationRepository extends ReactiveMongoRepository<Notification, String> {
+}
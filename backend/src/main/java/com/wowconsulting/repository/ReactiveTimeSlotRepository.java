@@ -0,0 +1,18 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.TimeSlot;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+// Variante reativa de TimeSlotRepository, ativa apenas no perfil "reactive"
+@Repository
+public interface ReactiveTimeSlotRepository extends ReactiveMongoRepository<TimeSlot, String>, ReactiveTimeSlotRepositoryCustom {
+    Flux<TimeSlot> findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(LocalDateTime dateTime);
+    Flux<TimeSlot> findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(
+            LocalDateTime start,
+            LocalDateTime end
+    );
+}
@@ -0,0 +1,12 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTimeSlotRepositoryCustom {
+    // Mesmas operações atômicas de TimeSlotRepositoryCustom; Mono vazio quando nada foi alterado
+    Mono<TimeSlot> claimSlot(String slotId, Appointment appointment);
+
+    Mono<TimeSlot> releaseSlot(String slotId, String appointmentId);
+}
@@ -0,0 +1,31 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+public class ReactiveTimeSlotRepositoryCustomImpl implements ReactiveTimeSlotRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<TimeSlot> claimSlot(String slotId, Appointment appointment) {
+        return reactiveMongoTemplate.findAndModify(
+                TimeSlotRepositoryCustomImpl.claimQuery(slotId),
+                TimeSlotRepositoryCustomImpl.claimUpdate(appointment),
+                FindAndModifyOptions.options().returnNew(true), TimeSlot.class);
+    }
+
+    @Override
+    public Mono<TimeSlot> releaseSlot(String slotId, String appointmentId) {
+        return reactiveMongoTemplate.findAndModify(
+                TimeSlotRepositoryCustomImpl.releaseQuery(slotId, appointmentId),
+                TimeSlotRepositoryCustomImpl.releaseUpdate(),
+                FindAndModifyOptions.options().returnNew(true), TimeSlot.class);
+    }
+}
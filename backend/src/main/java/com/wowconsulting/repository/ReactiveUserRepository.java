@@ -0,0 +1,12 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+// Variante reativa de UserRepository, ativa apenas no perfil "reactive"
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+    Mono<User> findByDiscordId(String discordId);
+}
@@ -0,0 +1,9 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.ReconciliationRun;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationRunRepository extends MongoRepository<ReconciliationRun, String> {
+}
@@ -2,6 +2,7 @@ package com.wowconsulting.repository;
 
 import com.wowconsulting.model.TimeSlot;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -9,24 +10,25 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TimeSlotRepository extends MongoRepository<TimeSlot, String> {
+public interface TimeSlotRepository extends MongoRepository<TimeSlot, String>, TimeSlotRepositoryCustom {
     List<TimeSlot> findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(LocalDateTime dateTime);
     List<TimeSlot> findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(
             LocalDateTime start,
             LocalDateTime end
     );
     List<TimeSlot> findAllByOrderByStartTime();
+    <T> List<T> findAllByOrderByStartTime(Class<T> type);
     List<TimeSlot> findByStartTimeBetweenOrderByStartTime(LocalDateTime start, LocalDateTime end);
-    List<TimeSlot> findByStartTimeBetweenOrEndTimeBetween(
-            LocalDateTime start1, LocalDateTime end1,
-            LocalDateTime start2, LocalDateTime end2
-    );
-    List<TimeSlot> findByStartTimeBetweenOrEndTimeBetweenAndIdNot(
-            LocalDateTime start1, LocalDateTime end1,
-            LocalDateTime start2, LocalDateTime end2,
-            String excludeId
-    );
-    List<TimeSlot> findByIsAvailableTrueAndEndTimeBefore(LocalDateTime dateTime);
+    // Sobreposição de intervalos semiabertos: startTime < end AND endTime > start
+    @Query(value = "{ 'startTime': { $lt: ?1 }, 'endTime': { $gt: ?0 } }", exists = true)
+    boolean existsOverlapping(LocalDateTime start, LocalDateTime end);
+    @Query(value = "{ 'startTime': { $lt: ?1 }, 'endTime': { $gt: ?0 }, '_id': { $ne: ?2 } }", exists = true)
+    boolean existsOverlappingExcluding(LocalDateTime start, LocalDateTime end, String excludeId);
+    @Query(value = "{ 'startTime': { $lt: ?1 }, 'endTime': { $gt: ?0 } }", fields = "{ 'startTime': 1, 'endTime': 1 }")
+    List<TimeSlot> findOverlapping(LocalDateTime start, LocalDateTime end);
+    // Apenas os intervalos (sem resolver @DBRef) dos horários que ainda não terminaram
+    @Query(value = "{ 'endTime': { $gt: ?0 } }", fields = "{ 'startTime': 1, 'endTime': 1 }")
+    List<TimeSlot> findActiveIntervals(LocalDateTime now);
     Optional<TimeSlot> findByAppointmentId(String appointmentId);
-    List<TimeSlot> findByCreatedByDiscordIdOrderByStartTime(String discordId);
+    List<TimeSlot> findByCreatedBySummaryDiscordIdOrderByStartTime(String discordId);
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.util.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface TimeSlotRepositoryCustom {
+
+    // updatedAt é o valor lido; releaseSlots só libera se o horário não mudou desde a leitura
+    record AppointmentRef(String slotId, String appointmentId, LocalDateTime updatedAt) {
+    }
+
+    // Marca o horário como ocupado somente se ainda estiver disponível (findAndModify atômico)
+    Optional<TimeSlot> claimSlot(String slotId, Appointment appointment);
+
+    // Libera o horário somente se ainda estiver vinculado ao agendamento informado
+    Optional<TimeSlot> releaseSlot(String slotId, String appointmentId);
+
+    Optional<TimeSlot> releaseSlotForAppointment(String appointmentId);
+
+    // Página ordenada por (startTime, id) começando logo após `after` (null = início); busca limit itens.
+    // `type` pode ser TimeSlot ou uma projeção (só os campos dela são lidos do banco)
+    <T> List<T> findPageOrderByStartTime(KeysetCursor after, int limit, Class<T> type);
+
+    // Percorre o cursor do MongoDB sem materializar a coleção; o chamador deve fechar o Stream
+    Stream<TimeSlot> streamAllOrderByStartTime();
+
+    // Remove até limit horários livres que terminaram antes de `before` (mais antigos primeiro) com um
+    // único deleteMany; retorna os ids efetivamente removidos
+    List<String> deleteExpiredAvailable(LocalDateTime before, int limit);
+
+    // Reconciliação (dryRun = só conta): ocupados sem agendamento voltam a ficar livres
+    long fixUnavailableWithoutAppointment(boolean dryRun);
+
+    // Reconciliação (dryRun = só conta): livres com agendamento passam a ocupados
+    long fixAvailableWithAppointment(boolean dryRun);
+
+    // Pares (horário, agendamento) de todos os horários com agendamento, lidos só com o _id e a referência.
+    // O chamador deve fechar o Stream
+    Stream<AppointmentRef> streamAppointmentRefs();
+
+    // Libera os horários em um único bulk write, cada um só se ainda apontar para o mesmo agendamento
+    // e não tiver sido alterado desde que foi lido
+    long releaseSlots(List<AppointmentRef> refs);
+
+    // Atualiza as cópias do usuário (criador e dono do agendamento) após mudança de nome/avatar
+    void refreshUserSummary(UserSummary user);
+}
@@ -0,0 +1,211 @@
+package com.wowconsulting.repository;
+
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.AppointmentSummary;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.util.KeysetCursor;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TimeSlotRepositoryCustomImpl implements TimeSlotRepositoryCustom {
+
+    private static final Sort BY_START_TIME = Sort.by("startTime", "id");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<TimeSlot> claimSlot(String slotId, Appointment appointment) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                claimQuery(slotId), claimUpdate(appointment), FindAndModifyOptions.options().returnNew(true), TimeSlot.class));
+    }
+
+    @Override
+    public Optional<TimeSlot> releaseSlot(String slotId, String appointmentId) {
+        return release(releaseQuery(slotId, appointmentId));
+    }
+
+    @Override
+    public Optional<TimeSlot> releaseSlotForAppointment(String appointmentId) {
+        return release(releaseQuery(null, appointmentId));
+    }
+
+    @Override
+    public <T> List<T> findPageOrderByStartTime(KeysetCursor after, int limit, Class<T> type) {
+        Query query = new Query().with(BY_START_TIME).limit(limit);
+        if (after != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("startTime").gt(after.time()),
+                    Criteria.where("startTime").is(after.time()).and("_id").gt(toObjectId(after.id()))
+            ));
+        }
+        return mongoTemplate.query(TimeSlot.class).as(type).matching(query).all();
+    }
+
+    @Override
+    public Stream<TimeSlot> streamAllOrderByStartTime() {
+        return mongoTemplate.stream(new Query().with(BY_START_TIME), TimeSlot.class);
+    }
+
+    @Override
+    public List<String> deleteExpiredAvailable(LocalDateTime before, int limit) {
+        Query expired = new Query(Criteria.where("isAvailable").is(true).and("endTime").lt(before))
+                .with(Sort.by("endTime"))
+                .limit(limit);
+        expired.fields().include("_id");
+        List<String> ids = mongoTemplate.find(expired, TimeSlot.class).stream().map(TimeSlot::getId).toList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        // Repete isAvailable: um horário reservado entre a leitura e a remoção é preservado
+        long deleted = mongoTemplate.remove(
+                new Query(Criteria.where("_id").in(ids).and("isAvailable").is(true)), TimeSlot.class).getDeletedCount();
+        if (deleted == ids.size()) {
+            return ids;
+        }
+        Query remaining = new Query(Criteria.where("_id").in(ids));
+        remaining.fields().include("_id");
+        Set<String> kept = mongoTemplate.find(remaining, TimeSlot.class).stream()
+                .map(TimeSlot::getId)
+                .collect(Collectors.toSet());
+        return ids.stream().filter(id -> !kept.contains(id)).toList();
+    }
+
+    @Override
+    public long fixUnavailableWithoutAppointment(boolean dryRun) {
+        Query query = new Query(Criteria.where("isAvailable").is(false).and("appointment").is(null));
+        if (dryRun) {
+            return mongoTemplate.count(query, TimeSlot.class);
+        }
+        Update update = new Update()
+                .set("isAvailable", true)
+                .unset("appointmentSummary")
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(query, update, TimeSlot.class).getModifiedCount();
+    }
+
+    @Override
+    public long fixAvailableWithAppointment(boolean dryRun) {
+        Query query = new Query(Criteria.where("isAvailable").is(true).and("appointment").ne(null));
+        if (dryRun) {
+            return mongoTemplate.count(query, TimeSlot.class);
+        }
+        Update update = new Update()
+                .set("isAvailable", false)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(query, update, TimeSlot.class).getModifiedCount();
+    }
+
+    @Override
+    public Stream<AppointmentRef> streamAppointmentRefs() {
+        // Lido como Document para não instanciar o proxy do @DBRef; o filtro em appointment.$id usa o índice appointment_ref
+        Query query = new Query(Criteria.where("appointment.$id").exists(true));
+        query.fields().include("appointment").include("updatedAt");
+        String collection = mongoTemplate.getCollectionName(TimeSlot.class);
+        return mongoTemplate.stream(query, Document.class, collection)
+                .filter(document -> document.get("appointment") instanceof DBRef)
+                .map(document -> new AppointmentRef(
+                        document.getObjectId("_id").toHexString(),
+                        idToString(((DBRef) document.get("appointment")).getId()),
+                        toLocalDateTime(document.getDate("updatedAt"))));
+    }
+
+    @Override
+    public long releaseSlots(List<AppointmentRef> refs) {
+        if (refs.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimeSlot.class);
+        refs.forEach(ref -> {
+            Query query = releaseQuery(ref.slotId(), ref.appointmentId());
+            if (ref.updatedAt() != null) {
+                query.addCriteria(Criteria.where("updatedAt").is(ref.updatedAt()));
+            }
+            bulk.updateOne(query, releaseUpdate());
+        });
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public void refreshUserSummary(UserSummary user) {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("createdBy.$id").is(toObjectId(user.id()))),
+                new Update().set("createdBySummary", user), TimeSlot.class);
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("appointmentSummary.user.id").is(user.id())),
+                new Update().set("appointmentSummary.user", user), TimeSlot.class);
+    }
+
+    private Optional<TimeSlot> release(Query query) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query, releaseUpdate(), FindAndModifyOptions.options().returnNew(true), TimeSlot.class));
+    }
+
+    // Consultas compartilhadas com ReactiveTimeSlotRepositoryCustomImpl
+
+    static Query claimQuery(String slotId) {
+        Query query = new Query(Criteria.where("_id").is(slotId).and("isAvailable").is(true));
+        // Projeção enxuta: evita resolver os @DBRef (createdBy/appointment) no retorno
+        query.fields().include("startTime", "endTime", "isAvailable");
+        return query;
+    }
+
+    static Update claimUpdate(Appointment appointment) {
+        return new Update()
+                .set("isAvailable", false)
+                .set("appointment", appointment)
+                .set("appointmentSummary", AppointmentSummary.of(appointment))
+                .set("updatedAt", LocalDateTime.now());
+    }
+
+    // slotId null: qualquer horário vinculado ao agendamento
+    static Query releaseQuery(String slotId, String appointmentId) {
+        Criteria criteria = Criteria.where("appointment.$id").is(toObjectId(appointmentId));
+        if (slotId != null) {
+            criteria = Criteria.where("_id").is(slotId).and("appointment.$id").is(toObjectId(appointmentId));
+        }
+        return new Query(criteria);
+    }
+
+    static Update releaseUpdate() {
+        return new Update()
+                .set("isAvailable", true)
+                .unset("appointment")
+                .unset("appointmentSummary")
+                .set("updatedAt", LocalDateTime.now());
+    }
+
+    // O DBRef é gravado com ObjectId quando o id é um hexadecimal válido
+    static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static String idToString(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
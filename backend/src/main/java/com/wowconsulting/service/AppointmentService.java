@@ -1,25 +1,44 @@
 package com.wowconsulting.service;
 
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
 import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
 import com.wowconsulting.model.TimeSlot;
 import com.wowconsulting.model.User;
 import com.wowconsulting.repository.AppointmentRepository;
 import com.wowconsulting.repository.TimeSlotRepository;
 import com.wowconsulting.repository.UserRepository;
+import com.wowconsulting.dto.AppointmentListItem;
 import com.wowconsulting.dto.AppointmentRequest;
-
+import com.wowconsulting.dto.PageResponse;
+import com.wowconsulting.util.KeysetCursor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class AppointmentService {
 
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -30,25 +49,50 @@ public class AppointmentService {
     private UserRepository userRepository;
 
     @Autowired
-    private DiscordService discordService;
+    private NotificationOutboxService notificationOutbox;
 
-    @Transactional
-    public Appointment createAppointment(AppointmentRequest request, User user) {
-        // Verifica se o horário ainda está disponível
-        Optional<TimeSlot> timeSlotOpt = timeSlotRepository.findById(request.getTimeSlotId());
-        if (timeSlotOpt.isEmpty()) {
-            throw new RuntimeException("Horário não encontrado");
-        }
+    @Autowired
+    private ReminderQueue reminderQueue;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LeasedJobRunner jobRunner;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
 
-        TimeSlot timeSlot = timeSlotOpt.get();
-        if (!timeSlot.isAvailable()) {
-            throw new RuntimeException("Horário não está mais disponível");
+    @Value("${reminders.sweep-interval:60000}")
+    private long reminderSweepInterval;
+
+    // Mede a reserva inteira em booking.appointments.create (outcome: success, slot-taken, not-found, error)
+    public Appointment createAppointment(AppointmentRequest request, User user) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Appointment appointment = bookAppointment(request, user);
+            outcome = "success";
+            return appointment;
+        } catch (SlotUnavailableException e) {
+            outcome = e.getOutcome();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("booking.appointments.create")
+                    .description("Tempo para reservar um horário e gravar o agendamento")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
+    }
 
-        // Cria o agendamento
+    private Appointment bookAppointment(AppointmentRequest request, User user) {
+        // O id é gerado antes para que o horário já seja reservado apontando para o agendamento
         Appointment appointment = new Appointment();
+        appointment.setId(new ObjectId().toHexString());
         appointment.setUser(user);
-        appointment.setScheduledTime(timeSlot.getStartTime());
         appointment.setBnetId(request.getBnetId());
         appointment.setDiscordTag(request.getDiscordTag());
         appointment.setCharacterClass(request.getCharacterClass());
@@ -57,32 +101,36 @@ public class AppointmentService {
         appointment.setCurrentContent(request.getCurrentContent());
         appointment.setExpectations(request.getExpectations());
 
-        // Salva o agendamento
-        appointment = appointmentRepository.save(appointment);
+        // Reserva o horário de forma atômica (isAvailable=true -> false) em uma única ida ao banco
+        Optional<TimeSlot> claimedOpt = timeSlotRepository.claimSlot(request.getTimeSlotId(), appointment);
+        if (claimedOpt.isEmpty()) {
+            if (!timeSlotRepository.existsById(request.getTimeSlotId())) {
+                throw new SlotUnavailableException("Horário não encontrado", "not-found");
+            }
+            throw new SlotUnavailableException("Horário não está mais disponível", "slot-taken");
+        }
 
-        // Atualiza o horário como ocupado
-        timeSlot.setAvailable(false);
-        timeSlot.setAppointment(appointment);
-        timeSlot.setUpdatedAt(LocalDateTime.now());
-        timeSlotRepository.save(timeSlot);
+        TimeSlot timeSlot = claimedOpt.get();
+        eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.TAKEN, timeSlot));
+        appointment.setScheduledTime(timeSlot.getStartTime());
 
-        // Envia notificação via Discord
-        sendAppointmentNotification(appointment, timeSlot);
+        // Salva o agendamento; se falhar, devolve o horário (compensação)
+        try {
+            appointment = appointmentRepository.insert(appointment);
+        } catch (RuntimeException e) {
+            timeSlotRepository.releaseSlot(timeSlot.getId(), appointment.getId())
+                    .ifPresent(released -> eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.RELEASED, released)));
+            throw e;
+        }
+        collectionVersions.appointmentsChanged(user.getDiscordId());
 
-        // Envia notificação ao dono do servidor
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        String ownerMessage = String.format(
-            "**Usuário:** %s\n**Data/Hora:** %s\n**BNet ID:** %s\n**Classe:** %s (%s)\n**Nível:** %s\n**Conteúdo Atual:** %s\n**Expectativas:** %s",
-            appointment.getUser().getUsername(),
-            appointment.getScheduledTime().format(formatter),
-            appointment.getBnetId(),
-            appointment.getCharacterClass(),
-            appointment.getSpecialization(),
-            appointment.getKnowledgeLevel(),
-            appointment.getCurrentContent(),
-            appointment.getExpectations()
-        );
-        discordService.sendAppointmentToOwner(ownerMessage);
+        // Notifica o canal de agendamentos e o dono do servidor (outbox, sem esperar o Discord)
+        String appointmentInfo = formatAppointmentInfo(appointment);
+        String appointmentId = appointment.getId();
+        enqueueBestEffort(appointmentId, () -> notificationOutbox.enqueue(
+                Notification.appointmentCreated(appointmentInfo),
+                Notification.appointmentCreatedForOwner(appointmentInfo)
+        ));
 
         return appointment;
     }
@@ -95,14 +143,52 @@ public class AppointmentService {
         return appointmentRepository.findByUser_IdOrderByScheduledTimeDesc(userOpt.get().getId());
     }
 
+    public List<AppointmentListItem> getUserAppointmentItems(String discordId) {
+        Optional<User> userOpt = userRepository.findByDiscordId(discordId);
+        if (userOpt.isEmpty()) {
+            throw new RuntimeException("Usuário não encontrado");
+        }
+        return appointmentRepository.findByUser_IdOrderByScheduledTimeDesc(userOpt.get().getId(), AppointmentListItem.class);
+    }
+
     public List<Appointment> getAllAppointments() {
         return appointmentRepository.findAllByOrderByScheduledTimeDesc();
     }
 
+    public List<AppointmentListItem> getAllAppointmentItems() {
+        return appointmentRepository.findAllByOrderByScheduledTimeDesc(AppointmentListItem.class);
+    }
+
+    public PageResponse<Appointment> getAppointmentsPage(String cursor, int limit) {
+        return page(cursor, limit, Appointment.class,
+                appointment -> new KeysetCursor(appointment.getScheduledTime(), appointment.getId()));
+    }
+
+    public PageResponse<AppointmentListItem> getAppointmentItemsPage(String cursor, int limit) {
+        return page(cursor, limit, AppointmentListItem.class,
+                item -> new KeysetCursor(item.scheduledTime(), item.id()));
+    }
+
+    private <T> PageResponse<T> page(String cursor, int limit, Class<T> type, Function<T, KeysetCursor> cursorOf) {
+        int pageSize = PageResponse.clampLimit(limit);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        List<T> fetched = appointmentRepository.findPageOrderByScheduledTimeDesc(after, pageSize + 1, type);
+        return PageResponse.of(fetched, pageSize, cursorOf);
+    }
+
+    public Stream<Appointment> streamAllAppointments() {
+        return appointmentRepository.streamAllOrderByScheduledTimeDesc();
+    }
+
     public List<Appointment> getUpcomingAppointments() {
         return appointmentRepository.findByScheduledTimeAfterOrderByScheduledTime(LocalDateTime.now());
     }
 
+    public List<AppointmentListItem> getUpcomingAppointmentItems() {
+        return appointmentRepository.findByScheduledTimeAfterOrderByScheduledTime(
+                LocalDateTime.now(), AppointmentListItem.class);
+    }
+
     public Optional<Appointment> getAppointmentById(String id) {
         return appointmentRepository.findById(id);
     }
@@ -122,6 +208,7 @@ public class AppointmentService {
         appointment.setUpdatedAt(LocalDateTime.now());
 
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        collectionVersions.appointmentsChanged(discordIdOf(appointment));
 
         // Envia mensagem privada ao usuário se confirmado
         if (status == Appointment.AppointmentStatus.CONFIRMED) {
@@ -132,7 +219,7 @@ public class AppointmentService {
                 appointment.getCharacterClass(),
                 appointment.getSpecialization()
             );
-            discordService.sendAppointmentReminder(appointment.getUser().getDiscordId(), message);
+            enqueueBestEffort(id, () -> notificationOutbox.enqueueReminder(appointment.getUserSummary().discordId(), message));
         }
 
         return updatedAppointment;
@@ -150,33 +237,40 @@ public class AppointmentService {
         appointment.setNotes(reason);
         appointment.setUpdatedAt(LocalDateTime.now());
         appointmentRepository.save(appointment);
+        collectionVersions.appointmentsChanged(discordIdOf(appointment));
 
         // Libera o horário
-        Optional<TimeSlot> timeSlotOpt = timeSlotRepository.findByAppointmentId(id);
-        if (timeSlotOpt.isPresent()) {
-            TimeSlot timeSlot = timeSlotOpt.get();
-            timeSlot.setAvailable(true);
-            timeSlot.setAppointment(null);
-            timeSlot.setUpdatedAt(LocalDateTime.now());
-            timeSlotRepository.save(timeSlot);
-        }
-
-        // Notifica o cancelamento (público)
-        sendCancellationNotification(appointment, reason);
+        timeSlotRepository.releaseSlotForAppointment(id)
+                .ifPresent(released -> eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.RELEASED, released)));
 
-        // Notifica o usuário no privado
+        // Notifica o usuário no privado (não envia mais para o canal público)
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         String message = String.format(
             "❌ Sua consultoria marcada para %s foi cancelada. Motivo: %s",
             appointment.getScheduledTime().format(formatter),
             reason != null ? reason : "Não informado"
         );
-        discordService.sendAppointmentReminder(appointment.getUser().getDiscordId(), message);
+        enqueueBestEffort(id, () -> notificationOutbox.enqueueReminder(appointment.getUserSummary().discordId(), message));
     }
 
-    private void sendAppointmentNotification(Appointment appointment, TimeSlot timeSlot) {
+    // A notificação é complementar: com o agendamento já gravado, falha no outbox é registrada e não
+    // chega ao cliente (que repetiria uma operação já concluída)
+    private void enqueueBestEffort(String appointmentId, Runnable enqueue) {
+        try {
+            enqueue.run();
+        } catch (RuntimeException e) {
+            log.error("Falha ao enfileirar notificação do agendamento {}", appointmentId, e);
+        }
+    }
+
+    // Dono do agendamento para a versão de /appointments/my; null invalida a versão de todos
+    private static String discordIdOf(Appointment appointment) {
+        return appointment.getUserSummary() != null ? appointment.getUserSummary().discordId() : null;
+    }
+
+    static String formatAppointmentInfo(Appointment appointment) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        String notificationMessage = String.format(
+        return String.format(
                 "**Usuário:** %s\n" +
                         "**Data/Hora:** %s\n" +
                         "**BNet ID:** %s\n" +
@@ -184,7 +278,7 @@ public class AppointmentService {
                         "**Nível:** %s\n" +
                         "**Conteúdo Atual:** %s\n" +
                         "**Expectativas:** %s",
-                appointment.getUser().getUsername(),
+                appointment.getUserSummary().username(),
                 appointment.getScheduledTime().format(formatter),
                 appointment.getBnetId(),
                 appointment.getCharacterClass(),
@@ -193,47 +287,48 @@ public class AppointmentService {
                 appointment.getCurrentContent(),
                 appointment.getExpectations()
         );
-
-        discordService.sendAppointmentNotification(notificationMessage);
     }
 
-    private void sendCancellationNotification(Appointment appointment, String reason) {
-        // Não envia mais para o canal público, apenas para o usuário
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        String message = String.format(
-            "❌ Sua consultoria marcada para %s foi cancelada. Motivo: %s",
-            appointment.getScheduledTime().format(formatter),
-            reason != null ? reason : "Não informado"
-        );
-        discordService.sendAppointmentReminder(appointment.getUser().getDiscordId(), message);
+    // Reserva recusada; a mensagem segue para o cliente e o outcome vai para a métrica
+    static class SlotUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final String outcome;
+
+        SlotUnavailableException(String message, String outcome) {
+            super(message);
+            this.outcome = outcome;
+        }
+
+        String getOutcome() {
+            return outcome;
+        }
     }
 
+    // Varre a fila de lembretes em uma única instância (lease); cada agendamento recebe no máximo um lembrete
+    @Scheduled(fixedDelayString = "${reminders.sweep-interval:60000}")
     public void sendReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime reminderTime = now.plusHours(2); // Lembrete 2 horas antes
-
-        List<Appointment> upcomingAppointments = appointmentRepository
-                .findByScheduledTimeBetweenAndStatus(
-                        now,
-                        reminderTime,
-                        Appointment.AppointmentStatus.SCHEDULED
-                );
+        jobRunner.runExclusive("appointment-reminders", Duration.ofMillis(reminderSweepInterval), lease -> sweepReminders());
+    }
 
-        for (Appointment appointment : upcomingAppointments) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            String reminderMessage = String.format(
-                    "Sua consultoria está agendada para: %s\n" +
-                            "Classe: %s (%s)\n" +
-                            "Prepare-se e esteja online no Discord!",
-                    appointment.getScheduledTime().format(formatter),
-                    appointment.getCharacterClass(),
-                    appointment.getSpecialization()
-            );
+    private void sweepReminders() {
+        List<ReminderQueue.DueReminder> delivered = reminderQueue.deliverDueReminders(
+                reminder -> notificationOutbox.enqueueDueReminder(
+                        reminder.appointmentId(), reminder.discordId(), reminderMessage(reminder)),
+                reminder -> notificationOutbox.withdrawReminder(reminder.appointmentId()));
+        // reminderSentAt aparece na lista completa do usuário
+        delivered.forEach(reminder -> collectionVersions.appointmentsChanged(reminder.discordId()));
+    }
 
-            discordService.sendAppointmentReminder(
-                    appointment.getUser().getDiscordId(),
-                    reminderMessage
-            );
-        }
+    private static String reminderMessage(ReminderQueue.DueReminder reminder) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        return String.format(
+                "Sua consultoria está agendada para: %s\n" +
+                        "Classe: %s (%s)\n" +
+                        "Prepare-se e esteja online no Discord!",
+                reminder.scheduledTime().format(formatter),
+                reminder.characterClass(),
+                reminder.specialization()
+        );
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,22 @@
 package com.wowconsulting.service;
 
 import com.wowconsulting.model.User;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.repository.AppointmentRepository;
+import com.wowconsulting.repository.TimeSlotRepository;
 import com.wowconsulting.repository.UserRepository;
 import com.wowconsulting.dto.AuthResponse;
+import com.wowconsulting.util.JwtClaims;
 import com.wowconsulting.util.JwtUtil;
 
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -18,40 +26,53 @@ public class AuthService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
     @Autowired
     private DiscordService discordService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Mede o login em auth.authenticate (outcome: success, denied, error)
     public CompletableFuture<AuthResponse> authenticateUser(String discordId, String username, String discriminator, String avatar, String email) {
-        return discordService.isUserInGuildWithRole(discordId)
-                .thenCompose(hasRole -> {
-                    if (!hasRole) {
-                        return CompletableFuture.completedFuture(
-                                new AuthResponse(false, "Usuário não possui os cargos necessários", null, null)
-                        );
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return discordService.getMemberAccess(discordId)
+                .thenApply(access -> {
+                    if (!access.hasRequiredRole()) {
+                        return new AuthResponse(false, "Usuário não possui os cargos necessários", null, null);
                     }
 
-                    return discordService.isUserAdmin(discordId)
-                            .thenCompose(isAdmin -> {
-                                return discordService.getUserRoles(discordId)
-                                        .thenApply(roles -> {
-                                            User user = findOrCreateUser(discordId, username, discriminator, avatar, email, roles, isAdmin);
-                                            String token = jwtUtil.generateToken(user.getDiscordId());
+                    User user = findOrCreateUser(discordId, username, discriminator, avatar, email, access.roleIds(), access.isAdmin());
+                    String token = jwtUtil.generateToken(user.getDiscordId());
 
-                                            return new AuthResponse(true, "Autenticação realizada com sucesso", token, user);
-                                        });
-                            });
-                });
+                    return new AuthResponse(true, "Autenticação realizada com sucesso", token, user);
+                })
+                .whenComplete((response, error) -> sample.stop(timer("auth.authenticate",
+                        error != null ? "error" : response.isSuccess() ? "success" : "denied")));
     }
 
     private User findOrCreateUser(String discordId, String username, String discriminator, String avatar, String email, List<String> roles, boolean isAdmin) {
         Optional<User> existingUser = userRepository.findByDiscordId(discordId);
 
         User user;
+        UserSummary previousSummary = null;
         if (existingUser.isPresent()) {
             user = existingUser.get();
+            previousSummary = UserSummary.of(user);
             // Atualiza informações do usuário
             user.setUsername(username);
             user.setDiscriminator(discriminator);
@@ -68,52 +89,82 @@ public class AuthService {
             user.setAdmin(isAdmin);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        tokenCache.invalidateUser(discordId);
+
+        // Agendamentos e horários guardam uma cópia do nome/avatar
+        UserSummary summary = UserSummary.of(saved);
+        if (previousSummary != null && !Objects.equals(previousSummary, summary)) {
+            appointmentRepository.refreshUserSummary(summary);
+            timeSlotRepository.refreshUserSummary(summary);
+            collectionVersions.appointmentsChanged(discordId);
+            collectionVersions.timeSlotsChanged();
+        }
+        return saved;
     }
 
+    // Mede a validação em auth.token.validate (outcome: cached, success, invalid, not-found, error)
     public Optional<User> validateToken(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
         try {
-            if (jwtUtil.isTokenExpired(token)) {
+            Optional<User> cached = tokenCache.get(token);
+            if (cached.isPresent()) {
+                outcome = "cached";
+                return cached;
+            }
+
+            JwtClaims claims = jwtUtil.parse(token);
+            if (claims.isExpired()) {
                 return Optional.empty();
             }
 
-            String discordId = jwtUtil.getDiscordIdFromToken(token);
-            return userRepository.findByDiscordId(discordId);
+            String discordId = claims.subject();
+            Optional<User> userOpt = userRepository.findByDiscordId(discordId);
+            userOpt.ifPresent(user -> tokenCache.put(token, discordId, claims.expiration(), user));
+            outcome = userOpt.isPresent() ? "success" : "not-found";
+            return userOpt;
 
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         } catch (Exception e) {
+            outcome = "error";
             return Optional.empty();
+        } finally {
+            sample.stop(timer("auth.token.validate", outcome));
         }
     }
 
+    private Timer timer(String name, String outcome) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     public CompletableFuture<Boolean> refreshUserPermissions(String discordId) {
-        return discordService.isUserInGuildWithRole(discordId)
-                .thenCompose(hasRole -> {
-                    if (!hasRole) {
+        return discordService.refreshMemberAccess(discordId)
+                .thenApply(access -> {
+                    Optional<User> userOpt = userRepository.findByDiscordId(discordId);
+                    if (!access.hasRequiredRole()) {
                         // Desativa o usuário se não tiver mais os cargos
-                        Optional<User> userOpt = userRepository.findByDiscordId(discordId);
                         if (userOpt.isPresent()) {
                             User user = userOpt.get();
                             user.setActive(false);
                             userRepository.save(user);
                         }
-                        return CompletableFuture.completedFuture(false);
+                        tokenCache.invalidateUser(discordId);
+                        return false;
                     }
 
-                    return discordService.getUserRoles(discordId)
-                            .thenCompose(roles -> {
-                                return discordService.isUserAdmin(discordId)
-                                        .thenApply(isAdmin -> {
-                                            Optional<User> userOpt = userRepository.findByDiscordId(discordId);
-                                            if (userOpt.isPresent()) {
-                                                User user = userOpt.get();
-                                                user.setRoles(roles);
-                                                user.setAdmin(isAdmin);
-                                                user.setActive(true);
-                                                userRepository.save(user);
-                                            }
-                                            return true;
-                                        });
-                            });
+                    if (userOpt.isPresent()) {
+                        User user = userOpt.get();
+                        user.setRoles(access.roleIds());
+                        user.setAdmin(access.isAdmin());
+                        user.setActive(true);
+                        userRepository.save(user);
+                    }
+                    tokenCache.invalidateUser(discordId);
+                    return true;
                 });
     }
-}
\ No newline at end of file
+}
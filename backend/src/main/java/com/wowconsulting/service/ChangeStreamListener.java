@@ -0,0 +1,291 @@
+package com.wowconsulting.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.MongoChangeEvent.Operation;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Acompanha time_slots, appointments e users via change streams e republica cada alteração como
+// MongoChangeEvent, para que os caches em memória de todas as instâncias vejam as escritas umas das outras.
+// O resume token de cada coleção é salvo em change_stream_checkpoints e retomado após reinício.
+// Change streams exigem replica set; em um MongoDB standalone deixe change-streams.enabled=false.
+@Component
+public class ChangeStreamListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamListener.class);
+
+    static final String CHECKPOINT_COLLECTION = "change_stream_checkpoints";
+    // ChangeStreamHistoryLost: o token salvo já saiu do oplog
+    private static final int HISTORY_LOST = 286;
+    private static final long STOP_TIMEOUT_MILLIS = 3000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${change-streams.enabled:false}")
+    private boolean enabled;
+
+    @Value("${change-streams.checkpoint-interval:1000}")
+    private long checkpointIntervalMillis;
+
+    @Value("${change-streams.retry-delay:5000}")
+    private long retryDelayMillis;
+
+    private final ThreadFactory threadFactory = new CustomizableThreadFactory("change-stream-");
+    private final List<Watcher<?>> watchers = new ArrayList<>();
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        watchers.add(new Watcher<>(TimeSlot.class));
+        watchers.add(new Watcher<>(Appointment.class));
+        watchers.add(new Watcher<>(User.class));
+        for (Watcher<?> watcher : watchers) {
+            watcher.thread = threadFactory.newThread(watcher::run);
+            watcher.thread.setDaemon(true);
+            watcher.thread.start();
+        }
+        log.info("Change streams ativos para {}", watchers.stream().map(w -> w.collection).toList());
+    }
+
+    // O último checkpoint é gravado pela própria thread de cada watcher (único dono do resume token);
+    // aqui só sinaliza e espera, para que o token esteja salvo antes do MongoTemplate ser fechado
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Watcher<?> watcher : watchers) {
+            Thread thread = watcher.thread;
+            // tryNext espera no máximo 1 s; retryLater pode estar dormindo e é interrompido
+            thread.join(STOP_TIMEOUT_MILLIS);
+            if (thread.isAlive()) {
+                thread.interrupt();
+                thread.join(STOP_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    private final class Watcher<T> {
+        private final Class<T> type;
+        private final String collection;
+        private final Timer lag;
+        private Thread thread;
+        private BsonDocument resumeToken;
+        private BsonDocument savedToken;
+        private long lastCheckpointAt;
+
+        Watcher(Class<T> type) {
+            this.type = type;
+            this.collection = mongoTemplate.getCollectionName(type);
+            // Atraso entre a escrita no primário e a publicação do evento nesta instância
+            this.lag = Timer.builder("change.stream.lag")
+                    .description("Atraso entre a escrita no MongoDB e o evento publicado localmente")
+                    .tag("collection", collection)
+                    .register(meterRegistry);
+        }
+
+        void run() {
+            resumeToken = loadCheckpoint();
+            savedToken = resumeToken;
+            while (running) {
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            if (!handle(change)) {
+                                // Stream invalidado pelo servidor: reabre a partir do momento atual
+                                break;
+                            }
+                        } else if (cursor.getResumeToken() != null) {
+                            // Avança o token mesmo sem eventos (post-batch resume token)
+                            resumeToken = cursor.getResumeToken();
+                        }
+                        maybeSaveCheckpoint();
+                    }
+                } catch (MongoCommandException e) {
+                    if (e.getErrorCode() == HISTORY_LOST) {
+                        log.warn("Histórico do change stream de {} perdido; recarregando caches", collection);
+                        resumeToken = null;
+                        publish(Operation.INVALIDATE, null, null, Instant.now());
+                    } else {
+                        retryLater(e);
+                    }
+                } catch (MongoException e) {
+                    retryLater(e);
+                }
+            }
+            // Descarta a interrupção vinda de stop() para que o driver não aborte a gravação final; a thread termina aqui
+            Thread.interrupted();
+            saveCheckpoint();
+        }
+
+        private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+            var stream = mongoTemplate.getCollection(collection).watch()
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            return stream.cursor();
+        }
+
+        // Retorna false quando o stream foi invalidado e precisa ser reaberto
+        private boolean handle(ChangeStreamDocument<Document> change) {
+            resumeToken = change.getResumeToken();
+            Instant clusterTime = clusterTime(change);
+            switch (change.getOperationType()) {
+                case INSERT, UPDATE, REPLACE -> {
+                    // fullDocument null: o documento foi removido antes do lookup; o DELETE vem em seguida
+                    Document fullDocument = change.getFullDocument();
+                    if (fullDocument == null) {
+                        publish(Operation.DELETE, idOf(change.getDocumentKey()), null, clusterTime);
+                    } else {
+                        T document = mongoTemplate.getConverter().read(type, fullDocument);
+                        publish(Operation.UPSERT, idOf(change.getDocumentKey()), document, clusterTime);
+                    }
+                }
+                case DELETE -> publish(Operation.DELETE, idOf(change.getDocumentKey()), null, clusterTime);
+                case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                    resumeToken = null;
+                    publish(Operation.INVALIDATE, null, null, clusterTime);
+                    return change.getOperationType() != OperationType.INVALIDATE;
+                }
+                default -> {
+                    // Demais operações (índices, etc.) não alteram documentos
+                }
+            }
+            lag.record(Duration.between(clusterTime, Instant.now()).abs());
+            return true;
+        }
+
+        private void publish(Operation operation, String id, T document, Instant clusterTime) {
+            try {
+                eventPublisher.publishEvent(new MongoChangeEvent<>(type, operation, id, document, clusterTime));
+            } catch (RuntimeException e) {
+                log.warn("Erro ao aplicar alteração de {} {}: {}", collection, id, e.getMessage());
+            }
+        }
+
+        private void retryLater(MongoException e) {
+            if (!running) {
+                return;
+            }
+            log.warn("Change stream de {} interrompido ({}); nova tentativa em {} ms",
+                    collection, e.getMessage(), retryDelayMillis);
+            try {
+                Thread.sleep(retryDelayMillis);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+
+        private BsonDocument loadCheckpoint() {
+            try {
+                BsonDocument checkpoint = checkpoints().find(Filters.eq("_id", collection)).first();
+                return checkpoint != null && checkpoint.isDocument("resumeToken") ? checkpoint.getDocument("resumeToken") : null;
+            } catch (MongoException e) {
+                log.warn("Erro ao ler checkpoint do change stream de {}: {}", collection, e.getMessage());
+                return null;
+            }
+        }
+
+        // Grava no máximo uma vez por intervalo; após reinício alguns eventos podem ser reaplicados (idempotentes)
+        private void maybeSaveCheckpoint() {
+            if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMillis) {
+                saveCheckpoint();
+            }
+        }
+
+        private void saveCheckpoint() {
+            BsonDocument token = resumeToken;
+            if (token == null || token.equals(savedToken)) {
+                return;
+            }
+            try {
+                BsonDocument checkpoint = new BsonDocument("_id", new BsonString(collection))
+                        .append("resumeToken", token)
+                        .append("updatedAt", new BsonDateTime(System.currentTimeMillis()));
+                checkpoints().replaceOne(Filters.eq("_id", collection), checkpoint, new ReplaceOptions().upsert(true));
+                savedToken = token;
+                lastCheckpointAt = System.currentTimeMillis();
+            } catch (MongoException e) {
+                log.warn("Erro ao salvar checkpoint do change stream de {}: {}", collection, e.getMessage());
+            }
+        }
+
+        private MongoCollection<BsonDocument> checkpoints() {
+            return mongoTemplate.getCollection(CHECKPOINT_COLLECTION).withDocumentClass(BsonDocument.class);
+        }
+    }
+
+    // Usa o horário de parede do servidor (MongoDB 6+) e, na falta dele, o clusterTime (resolução de segundos)
+    static Instant clusterTime(ChangeStreamDocument<?> change) {
+        if (change.getWallTime() != null) {
+            return Instant.ofEpochMilli(change.getWallTime().getValue());
+        }
+        if (change.getClusterTime() != null) {
+            return Instant.ofEpochSecond(change.getClusterTime().getTime());
+        }
+        return Instant.now();
+    }
+
+    static String idOf(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versões em memória das listas servidas com ETag (/timeslots/available e /appointments/my).
+// Cada escrita incrementa a versão; o prefixo aleatório por instância impede que outra instância
+// (ou esta após reiniciar) reconheça um ETag que não gerou e responda 304 indevidamente.
+// Escritas de outras instâncias só chegam pelo change stream: sem ele, os ETags valem no máximo maxValiditySeconds.
+@Component
+public class CollectionVersions {
+
+    @Value("${change-streams.enabled:false}")
+    private boolean changeStreamsEnabled;
+
+    @Value("${http-cache.etag-max-validity:60}")
+    private long maxValiditySeconds;
+
+    private final String instanceEpoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final AtomicLong timeSlots = new AtomicLong();
+
+    // Contador único dos agendamentos; cada usuário guarda o valor da sua última alteração.
+    // Alterações sem usuário conhecido sobem o piso de todos (appointmentsFloor) e limpam o mapa
+    private final AtomicLong appointments = new AtomicLong();
+    private volatile long appointmentsFloor = 0;
+    private final Map<String, Long> appointmentsByUser = new ConcurrentHashMap<>();
+
+    public String timeSlotsVersion() {
+        return instanceEpoch + "." + timeSlots.get();
+    }
+
+    public String appointmentsVersion(String discordId) {
+        long version = Math.max(appointmentsFloor, appointmentsByUser.getOrDefault(discordId, 0L));
+        return instanceEpoch + "." + version;
+    }
+
+    // Validade dos ETags emitidos agora; null quando as escritas de todas as instâncias chegam por change stream
+    public Instant validUntil(Instant now) {
+        return changeStreamsEnabled ? null : now.plusSeconds(maxValiditySeconds);
+    }
+
+    public void timeSlotsChanged() {
+        timeSlots.incrementAndGet();
+    }
+
+    public void appointmentsChanged(String discordId) {
+        if (discordId == null) {
+            allAppointmentsChanged();
+            return;
+        }
+        appointmentsByUser.merge(discordId, appointments.incrementAndGet(), Math::max);
+    }
+
+    public synchronized void allAppointmentsChanged() {
+        appointmentsFloor = appointments.incrementAndGet();
+        appointmentsByUser.clear();
+    }
+
+    // Toda escrita em horários (TimeSlotService, reserva e cancelamento) publica este evento
+    @EventListener
+    public void onTimeSlotChanged(TimeSlotChangedEvent event) {
+        timeSlotsChanged();
+    }
+
+    // Escritas feitas por outras instâncias (change stream)
+    @EventListener
+    public void onTimeSlotDocumentChanged(MongoChangeEvent<TimeSlot> event) {
+        timeSlotsChanged();
+    }
+
+    @EventListener
+    public void onAppointmentDocumentChanged(MongoChangeEvent<Appointment> event) {
+        Appointment appointment = event.getDocument();
+        if (event.getOperation() == MongoChangeEvent.Operation.UPSERT
+                && appointment != null && appointment.getUserSummary() != null) {
+            appointmentsChanged(appointment.getUserSummary().discordId());
+        } else {
+            allAppointmentsChanged();
+        }
+    }
+}
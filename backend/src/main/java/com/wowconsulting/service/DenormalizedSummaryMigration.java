@@ -0,0 +1,163 @@
+package com.wowconsulting.service;
+
+import com.mongodb.DBRef;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.AppointmentSummary;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import com.wowconsulting.model.UserSummary;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Preenche userSummary/createdBySummary/appointmentSummary em documentos gravados antes das cópias existirem.
+// Cada lote custa uma consulta $in por coleção referenciada e um bulk write, não uma consulta por documento.
+@Component
+public class DenormalizedSummaryMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(DenormalizedSummaryMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${migrations.summary-backfill.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        try {
+            // Agendamentos primeiro: o resumo do agendamento no horário inclui o resumo do usuário
+            int appointments = backfillAppointments();
+            int timeSlots = backfillTimeSlots();
+            if (appointments > 0 || timeSlots > 0) {
+                log.info("Resumos preenchidos: {} agendamentos, {} horários", appointments, timeSlots);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Erro ao preencher resumos desnormalizados: {}", e.getMessage());
+        }
+    }
+
+    int backfillAppointments() {
+        String collection = mongoTemplate.getCollectionName(Appointment.class);
+        Criteria missing = Criteria.where("userSummary").exists(false).and("user").exists(true);
+        int updated = 0;
+        Object lastId = null;
+        while (true) {
+            List<Document> batch = nextBatch(collection, missing, lastId, "user");
+            if (batch.isEmpty()) {
+                return updated;
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+
+            Map<String, User> users = findByIds(User.class, refIds(batch, "user"), User::getId);
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Appointment.class);
+            int operations = 0;
+            for (Document document : batch) {
+                User user = users.get(refId(document, "user"));
+                if (user != null) {
+                    bulk.updateOne(byId(document), new Update().set("userSummary", UserSummary.of(user)));
+                    operations++;
+                }
+            }
+            if (operations > 0) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        }
+    }
+
+    int backfillTimeSlots() {
+        String collection = mongoTemplate.getCollectionName(TimeSlot.class);
+        Criteria missing = new Criteria().orOperator(
+                Criteria.where("createdBySummary").exists(false).and("createdBy").exists(true),
+                Criteria.where("appointmentSummary").exists(false).and("appointment").exists(true)
+        );
+        int updated = 0;
+        Object lastId = null;
+        while (true) {
+            List<Document> batch = nextBatch(collection, missing, lastId, "createdBy", "appointment");
+            if (batch.isEmpty()) {
+                return updated;
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+
+            Map<String, User> creators = findByIds(User.class, refIds(batch, "createdBy"), User::getId);
+            Map<String, Appointment> appointments =
+                    findByIds(Appointment.class, refIds(batch, "appointment"), Appointment::getId);
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimeSlot.class);
+            int operations = 0;
+            for (Document document : batch) {
+                Update update = new Update();
+                User creator = creators.get(refId(document, "createdBy"));
+                if (creator != null) {
+                    update.set("createdBySummary", UserSummary.of(creator));
+                }
+                Appointment appointment = appointments.get(refId(document, "appointment"));
+                if (appointment != null) {
+                    update.set("appointmentSummary", AppointmentSummary.of(appointment));
+                }
+                if (!update.getUpdateObject().isEmpty()) {
+                    bulk.updateOne(byId(document), update);
+                    operations++;
+                }
+            }
+            if (operations > 0) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        }
+    }
+
+    // Documentos crus (sem mapear a entidade) para ler os ids dos DBRefs sem resolvê-los
+    private List<Document> nextBatch(String collection, Criteria missing, Object lastId, String... refFields) {
+        Query query = new Query(missing).with(Sort.by("_id")).limit(batchSize);
+        if (lastId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastId));
+        }
+        query.fields().include(refFields);
+        return mongoTemplate.find(query, Document.class, collection);
+    }
+
+    private <T> Map<String, T> findByIds(Class<T> type, Set<Object> ids, Function<T, String> idOf) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return mongoTemplate.find(new Query(Criteria.where("_id").in(ids)), type).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    private static Set<Object> refIds(List<Document> batch, String field) {
+        Set<Object> ids = new HashSet<>();
+        for (Document document : batch) {
+            if (document.get(field) instanceof DBRef ref) {
+                ids.add(ref.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static String refId(Document document, String field) {
+        return document.get(field) instanceof DBRef ref ? ref.getId().toString() : null;
+    }
+
+    private static Query byId(Document document) {
+        return new Query(Criteria.where("_id").is(document.get("_id")));
+    }
+}
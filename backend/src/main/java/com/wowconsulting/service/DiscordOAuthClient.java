@@ -0,0 +1,149 @@
+package com.wowconsulting.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+// Cliente OAuth do Discord compartilhado: um único HttpClient (HTTP/2, conexões reaproveitadas com keep-alive)
+// e o ObjectMapper do Spring. As chamadas são assíncronas; nenhuma thread fica parada esperando o Discord.
+@Component
+public class DiscordOAuthClient {
+
+    @Value("${discord.client-id}")
+    private String clientId;
+
+    @Value("${discord.client-secret}")
+    private String clientSecret;
+
+    @Value("${discord.redirect-uri}")
+    private String redirectUri;
+
+    @Value("${discord.oauth.base-url:https://discord.com/api}")
+    private String baseUrl;
+
+    @Value("${discord.oauth.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${discord.oauth.request-timeout:10s}")
+    private Duration requestTimeout;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("discordExecutor")
+    private Executor discordExecutor;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(discordExecutor)
+                .build();
+    }
+
+    // Troca o code pelo access token e busca /users/@me
+    public CompletableFuture<JsonNode> fetchUser(String code) {
+        return exchangeCode(code).thenCompose(this::fetchCurrentUser);
+    }
+
+    public CompletableFuture<String> exchangeCode(String code) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("client_id", clientId);
+        form.put("client_secret", clientSecret);
+        form.put("grant_type", "authorization_code");
+        form.put("code", code);
+        form.put("redirect_uri", redirectUri);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/oauth2/token"))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(encodeForm(form)))
+                .build();
+
+        return send(request, "token").thenApply(json -> {
+            JsonNode accessToken = json.get("access_token");
+            if (accessToken == null || accessToken.isNull()) {
+                throw new CompletionException(new IllegalStateException("Resposta do Discord sem access_token"));
+            }
+            return accessToken.asText();
+        });
+    }
+
+    public CompletableFuture<JsonNode> fetchCurrentUser(String accessToken) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/@me"))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return send(request, "user");
+    }
+
+    // Mede cada chamada em discord.oauth.requests (tags operation e outcome)
+    private CompletableFuture<JsonNode> send(HttpRequest request, String operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<HttpResponse<byte[]>> call;
+        try {
+            call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RejectedExecutionException e) {
+            // Executor do Discord saturado
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new CompletionException(new IllegalStateException(
+                                "Discord respondeu " + response.statusCode() + " em " + operation));
+                    }
+                    try {
+                        return objectMapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new CompletionException(new IllegalStateException("Resposta inválida do Discord", e));
+                    }
+                })
+                .whenComplete((json, error) -> sample.stop(Timer.builder("discord.oauth.requests")
+                        .description("Latência das chamadas OAuth ao Discord")
+                        .tag("operation", operation)
+                        .tag("outcome", error == null ? "success" : "error")
+                        .register(meterRegistry)));
+    }
+
+    private static String encodeForm(Map<String, String> form) {
+        return form.entrySet().stream()
+                .map(entry -> URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+}
@@ -1,13 +1,30 @@
 package com.wowconsulting.service;
 
+import com.wowconsulting.dto.MemberAccess;
+
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -15,11 +32,19 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 @Service
 public class DiscordService {
 
+    private static final Logger log = LoggerFactory.getLogger(DiscordService.class);
+
     @Value("${discord.bot.token}")
     private String botToken;
 
@@ -32,14 +57,34 @@ public class DiscordService {
     @Value("#{'${discord.bot.admin-roles}'.split(',')}")
     private List<String> adminRoles;
 
+    @Value("${discord.member-cache.ttl:600000}")
+    private long memberCacheTtl;
+
+    @Autowired
+    @Qualifier("discordExecutor")
+    private Executor discordExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private JDA jda;
     private Guild guild;
 
+    private final Map<String, CachedAccess> memberAccessCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<MemberAccess>> inFlightLookups = new ConcurrentHashMap<>();
+    // Ordena as escritas no cache: uma busca iniciada antes de um evento ou refresh não sobrescreve o resultado deles
+    private final AtomicLong stamps = new AtomicLong();
+
+    final ListenerAdapter memberAccessListener = new MemberAccessListener();
+
     @PostConstruct
     public void init() {
         try {
             this.jda = JDABuilder.createDefault(botToken)
                     .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.GUILD_MESSAGES)
+                    // Membros buscados ficam no cache do JDA e passam a receber eventos de cargo
+                    .setMemberCachePolicy(MemberCachePolicy.ALL)
+                    .addEventListeners(memberAccessListener)
                     .build();
 
             this.jda.awaitReady();
@@ -62,137 +107,227 @@ public class DiscordService {
     }
 
     public CompletableFuture<Boolean> isUserInGuildWithRole(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Member member = guild.getMemberById(userId);
-                if (member == null) {
-                    // Tenta buscar via API se não estiver em cache
-                    try {
-                        member = guild.retrieveMemberById(userId).complete();
-                        // System.out.println("[DEBUG] Membro buscado via API: " + (member != null));
-                    } catch (Exception ex) {
-                        // System.out.println("[DEBUG] Erro ao buscar membro via API: " + ex.getMessage());
-                    }
-                }
-                if (member == null) {
-                    // System.out.println("[DEBUG] Servidor de consulta: " + guildId);
-                    // System.out.println("[DEBUG] Membro não encontrado no servidor: " + userId);
-                    return false;
-                }
-                List<Role> memberRoles = member.getRoles();
-                boolean hasRole = memberRoles.stream()
-                        .anyMatch(role -> requiredRoles.contains(role.getId()));
-                // System.out.println("[DEBUG] Roles do usuário: " + memberRoles.stream().map(Role::getId).toList());
-                // System.out.println("[DEBUG] requiredRoles: " + requiredRoles);
-                return hasRole;
-            } catch (Exception e) {
-                System.err.println("[DEBUG] Erro ao verificar cargos: " + e.getMessage());
-                return false;
-            }
-        });
+        return getMemberAccess(userId).thenApply(MemberAccess::hasRequiredRole);
     }
 
     public CompletableFuture<Boolean> isUserAdmin(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Member member = guild.getMemberById(userId);
-                if (member == null) {
-                    // Tenta buscar via API se não estiver em cache
-                    try {
-                        member = guild.retrieveMemberById(userId).complete();
-                        // System.out.println("[DEBUG] Membro buscado via API (admin): " + (member != null));
-                    } catch (Exception ex) {
-                        // System.out.println("[DEBUG] Erro ao buscar membro via API (admin): " + ex.getMessage());
-                    }
-                }
-                if (member == null) {
-                    // System.out.println("[DEBUG] Membro não encontrado no servidor (admin): " + userId);
-                    return false;
-                }
-                List<Role> memberRoles = member.getRoles();
-                boolean isAdmin = memberRoles.stream()
-                        .anyMatch(role -> adminRoles.contains(role.getId()));
-                // System.out.println("[DEBUG] Roles do usuário (admin): " + memberRoles.stream().map(Role::getId).toList());
-                // System.out.println("[DEBUG] adminRoles: " + adminRoles);
-                return isAdmin;
-            } catch (Exception e) {
-                System.err.println("[DEBUG] Erro ao verificar cargos admin: " + e.getMessage());
-                return false;
-            }
-        });
+        return getMemberAccess(userId).thenApply(MemberAccess::isAdmin);
     }
 
     public CompletableFuture<List<String>> getUserRoles(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Member member = guild.getMemberById(userId);
-                if (member == null) {
-                    // Tenta buscar via API se não estiver em cache
-                    try {
-                        member = guild.retrieveMemberById(userId).complete();
-                        // System.out.println("[DEBUG] Membro buscado via API (roles): " + (member != null));
-                    } catch (Exception ex) {
-                        // System.out.println("[DEBUG] Erro ao buscar membro via API (roles): " + ex.getMessage());
-                    }
-                }
-                if (member == null) {
-                    // System.out.println("[DEBUG] Membro não encontrado ao buscar roles: " + userId);
-                    return List.of();
-                }
-                return member.getRoles().stream()
-                        .map(Role::getId)
-                        .toList();
-            } catch (Exception e) {
-                System.err.println("[DEBUG] Erro ao buscar roles: " + e.getMessage());
-                return List.of();
-            }
-        });
+        return getMemberAccess(userId).thenApply(MemberAccess::roleIds);
+    }
+
+    // Resolve presença, cargo obrigatório, admin e cargos em uma única chamada.
+    // A API do Discord só é chamada quando não há entrada válida no cache, e chamadas
+    // simultâneas para o mesmo usuário compartilham a mesma busca em andamento.
+    public CompletableFuture<MemberAccess> getMemberAccess(String userId) {
+        CachedAccess cached = memberAccessCache.get(userId);
+        if (cached != null && !cached.isExpired()) {
+            meterRegistry.counter("discord.member.cache", "result", "hit").increment();
+            return CompletableFuture.completedFuture(cached.access());
+        }
+        meterRegistry.counter("discord.member.cache", "result", "miss").increment();
+
+        CompletableFuture<MemberAccess> lookup = new CompletableFuture<>();
+        CompletableFuture<MemberAccess> inFlight = inFlightLookups.putIfAbsent(userId, lookup);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        return startLookup(userId, lookup);
     }
 
-    public CompletableFuture<Void> sendAppointmentNotification(String appointmentInfo) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // Procura por um canal de notificações ou canal geral
-                TextChannel channel = guild.getTextChannelsByName("agendamentos", true).stream()
-                        .findFirst()
-                        .orElse(guild.getDefaultChannel().asTextChannel());
+    // Ignora o cache e consulta o Discord novamente (usado no refresh de permissões). Não aproveita uma busca
+    // já em andamento, que pode ter lido os cargos antes da mudança; as chamadas seguintes aguardam esta.
+    public CompletableFuture<MemberAccess> refreshMemberAccess(String userId) {
+        invalidateMemberAccess(userId);
+        CompletableFuture<MemberAccess> lookup = new CompletableFuture<>();
+        inFlightLookups.put(userId, lookup);
+        return startLookup(userId, lookup);
+    }
 
-                if (channel != null) {
-                    channel.sendMessage("🗓️ **Nova Consultoria Agendada!**\n" + appointmentInfo).queue();
-                }
-            } catch (Exception e) {
-                // Log do erro, mas não falha o processo
-                System.err.println("Erro ao enviar notificação: " + e.getMessage());
-            }
-        });
+    public void invalidateMemberAccess(String userId) {
+        // Marca em vez de remover, para que uma busca anterior não grave o resultado antigo depois
+        memberAccessCache.put(userId, CachedAccess.invalidated(stamps.incrementAndGet()));
     }
 
-    public CompletableFuture<Void> sendAppointmentReminder(String userId, String appointmentInfo) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                Member member = guild.getMemberById(userId);
-                if (member != null) {
-                    member.getUser().openPrivateChannel().queue(channel -> {
-                        channel.sendMessage("⏰ **Lembrete de Consultoria**\n" + appointmentInfo).queue();
-                    });
+    private CompletableFuture<MemberAccess> startLookup(String userId, CompletableFuture<MemberAccess> lookup) {
+        long stamp = stamps.incrementAndGet();
+        try {
+            CompletableFuture.runAsync(() -> {
+                MemberAccess access;
+                try {
+                    access = fetchMemberAccess(userId, stamp);
+                } catch (Throwable t) {
+                    inFlightLookups.remove(userId, lookup);
+                    lookup.completeExceptionally(t);
+                    return;
                 }
-            } catch (Exception e) {
-                System.err.println("Erro ao enviar lembrete: " + e.getMessage());
+                inFlightLookups.remove(userId, lookup);
+                lookup.complete(access);
+            }, discordExecutor);
+        } catch (RejectedExecutionException e) {
+            // Executor saturado: falha agora (o controller responde 503) em vez de buscar na thread de quem chamou
+            inFlightLookups.remove(userId, lookup);
+            lookup.completeExceptionally(e);
+        }
+        return lookup;
+    }
+
+    private MemberAccess fetchMemberAccess(String userId, long stamp) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Member member = guild.getMemberById(userId);
+            if (member == null) {
+                // Tenta buscar via API se não estiver em cache
+                member = guild.retrieveMemberById(userId).complete();
             }
-        });
+            return cacheMemberAccess(userId, member, stamp);
+        } catch (ErrorResponseException e) {
+            if (e.getErrorResponse() == ErrorResponse.UNKNOWN_MEMBER) {
+                outcome = "not-found";
+                return cacheMemberAccess(userId, null, stamp);
+            }
+            outcome = "error";
+            log.warn("Erro ao buscar membro {} no Discord", userId, e);
+            return MemberAccess.notInGuild();
+        } catch (Exception e) {
+            outcome = "error";
+            log.warn("Erro ao verificar cargos do membro {}", userId, e);
+            return MemberAccess.notInGuild();
+        } finally {
+            sample.stop(callTimer("member.fetch", outcome));
+        }
     }
 
-    public CompletableFuture<Void> sendAppointmentToOwner(String appointmentInfo) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                if (guild != null && guild.getOwner() != null) {
-                    guild.getOwner().getUser().openPrivateChannel().queue(channel -> {
-                        channel.sendMessage("🗓️ **Novo agendamento criado!**\n" + appointmentInfo).queue();
-                    });
-                }
-            } catch (Exception e) {
-                System.err.println("Erro ao enviar notificação ao dono: " + e.getMessage());
+    // Grava só se nenhuma escrita mais nova (evento, refresh, invalidação) já passou por esta entrada
+    private MemberAccess cacheMemberAccess(String userId, Member member, long stamp) {
+        MemberAccess access = toMemberAccess(member);
+        CachedAccess entry = new CachedAccess(access, System.currentTimeMillis() + memberCacheTtl, stamp);
+        memberAccessCache.compute(userId, (id, current) -> current == null || current.stamp() < stamp ? entry : current);
+        return access;
+    }
+
+    private void cacheMemberAccess(String userId, Member member) {
+        cacheMemberAccess(userId, member, stamps.incrementAndGet());
+    }
+
+    private MemberAccess toMemberAccess(Member member) {
+        if (member == null) {
+            return MemberAccess.notInGuild();
+        }
+        List<String> roleIds = member.getRoles().stream()
+                .map(Role::getId)
+                .toList();
+        boolean hasRole = roleIds.stream().anyMatch(requiredRoles::contains);
+        boolean isAdmin = roleIds.stream().anyMatch(adminRoles::contains);
+        return new MemberAccess(true, hasRole, isAdmin, roleIds);
+    }
+
+    private record CachedAccess(MemberAccess access, long expiresAt, long stamp) {
+        static CachedAccess invalidated(long stamp) {
+            return new CachedAccess(null, 0, stamp);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+    // Mantém o cache de cargos atualizado a partir dos eventos do gateway
+    private class MemberAccessListener extends ListenerAdapter {
+
+        @Override
+        public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+            if (isOurGuild(event.getGuild())) {
+                cacheMemberAccess(event.getMember().getId(), event.getMember());
+            }
+        }
+
+        @Override
+        public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+            if (isOurGuild(event.getGuild())) {
+                cacheMemberAccess(event.getMember().getId(), event.getMember());
+            }
+        }
+
+        @Override
+        public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+            if (isOurGuild(event.getGuild())) {
+                cacheMemberAccess(event.getMember().getId(), event.getMember());
+            }
+        }
+
+        @Override
+        public void onGuildMemberRemove(GuildMemberRemoveEvent event) {
+            if (isOurGuild(event.getGuild())) {
+                cacheMemberAccess(event.getUser().getId(), null);
             }
+        }
+
+        @Override
+        public void onRoleDelete(RoleDeleteEvent event) {
+            if (isOurGuild(event.getGuild())) {
+                String roleId = event.getRole().getId();
+                memberAccessCache.replaceAll((userId, cached) ->
+                        cached.access() != null && cached.access().roleIds().contains(roleId)
+                                ? CachedAccess.invalidated(stamps.incrementAndGet())
+                                : cached);
+            }
+        }
+
+        private boolean isOurGuild(Guild eventGuild) {
+            return guildId.equals(eventGuild.getId());
+        }
+    }
+
+    // Envios usados pelo NotificationDispatcher: o future só completa quando o Discord confirma a mensagem
+
+    public CompletableFuture<Void> deliverToAppointmentsChannel(String content) {
+        return timed("message.channel", () -> {
+            // Procura por um canal de notificações ou canal geral
+            TextChannel channel = guild.getTextChannelsByName("agendamentos", true).stream()
+                    .findFirst()
+                    .orElse(guild.getDefaultChannel().asTextChannel());
+            return channel.sendMessage(content).submit().thenApply(message -> null);
         });
     }
-}
\ No newline at end of file
+
+    public CompletableFuture<Void> deliverToOwner(String content) {
+        return timed("message.owner", () -> guild.retrieveOwner()
+                .flatMap(owner -> owner.getUser().openPrivateChannel())
+                .flatMap(channel -> channel.sendMessage(content))
+                .submit()
+                .thenApply(message -> null));
+    }
+
+    public CompletableFuture<Void> deliverDirectMessage(String userId, String content) {
+        return timed("message.direct", () -> jda.retrieveUserById(userId)
+                .flatMap(user -> user.openPrivateChannel())
+                .flatMap(channel -> channel.sendMessage(content))
+                .submit()
+                .thenApply(message -> null));
+    }
+
+    // Mede cada chamada ao Discord em discord.calls (tags operation e outcome) até o future completar
+    private <T> CompletableFuture<T> timed(String operation, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) ->
+                sample.stop(callTimer(operation, error == null ? "success" : "error")));
+    }
+
+    private Timer callTimer(String operation, String outcome) {
+        return Timer.builder("discord.calls")
+                .description("Latência das chamadas ao Discord (JDA)")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
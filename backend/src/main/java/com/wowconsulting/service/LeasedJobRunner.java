@@ -0,0 +1,188 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.JobLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Garante que cada job agendado rode em uma única instância por vez. Todas as instâncias disparam o
+// @Scheduled, mas só quem obtém o lease em job_leases executa; as demais pulam o ciclo. O dono renova o
+// lease a cada execução (e durante execuções longas via renew), e outra instância assume quando ele expira.
+// A exclusão é best-effort: renew entre lotes é verificar-e-agir, então um dono que travar logo depois de
+// renovar (GC, rede) ainda aplica o lote seguinte ao mesmo tempo que o novo dono. Por isso as escritas
+// dos jobs são condicionais e idempotentes (releaseSlots confere updatedAt, markReminderSent exige
+// reminderSentAt nulo, deleteExpiredAvailable e os fix* só alteram documentos ainda inconsistentes).
+@Component
+public class LeasedJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasedJobRunner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jobs.lease-ttl:120000}")
+    private long leaseTtlMillis;
+
+    @Value("${jobs.instance-id:}")
+    private String configuredInstanceId;
+
+    private String instanceId;
+
+    @PostConstruct
+    public void init() {
+        instanceId = configuredInstanceId != null && !configuredInstanceId.isBlank()
+                ? configuredInstanceId
+                : hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // Executa task se esta instância obtiver o lease do job; retorna false quando outra instância é a dona
+    public boolean runExclusive(String job, Duration interval, Consumer<Lease> task) {
+        Lease lease;
+        try {
+            lease = acquire(job, interval);
+        } catch (RuntimeException e) {
+            log.warn("Erro ao obter lease do job {}: {}", job, e.getMessage());
+            return false;
+        }
+        if (lease == null) {
+            meterRegistry.counter("jobs.runs.skipped", "job", job).increment();
+            return false;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            task.accept(lease);
+            outcome = "success";
+            markFinished(lease);
+        } catch (LeaseLostException e) {
+            outcome = "lease-lost";
+            log.warn("Job {} interrompido: lease perdido (token {})", job, lease.fencingToken());
+        } catch (RuntimeException e) {
+            log.warn("Erro ao executar job {}: {}", job, e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("jobs.run.duration")
+                    .description("Duração das execuções de jobs agendados")
+                    .tag("job", job)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        return true;
+    }
+
+    // Prolonga o lease durante execuções longas; lança LeaseLostException se outra instância assumiu.
+    // Limita um dono antigo a no máximo o lote em andamento, mas não barra as escritas desse lote.
+    public void renew(Lease lease) {
+        Query query = new Query(Criteria.where("_id").is(lease.job())
+                .and("owner").is(instanceId)
+                .and("fencingToken").is(lease.fencingToken()));
+        Update update = new Update().set("leaseUntil", LocalDateTime.now().plusNanos(leaseTtlMillis * 1_000_000));
+        if (mongoTemplate.updateFirst(query, update, JobLease.class).getMatchedCount() == 0) {
+            throw new LeaseLostException(lease);
+        }
+    }
+
+    private Lease acquire(String job, Duration interval) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseTtlMillis * 1_000_000);
+
+        // Já sou o dono: renova mantendo o mesmo token
+        JobLease renewed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(job).and("owner").is(instanceId)),
+                new Update().set("leaseUntil", leaseUntil).set("lastRunStartedAt", now),
+                JobLease.class);
+        if (renewed != null) {
+            recordLag(job, renewed, interval, now);
+            return new Lease(job, renewed.getFencingToken());
+        }
+
+        // Assume um lease expirado (ou cria o primeiro); se outra instância o detém, o upsert colide no _id
+        JobLease previous;
+        try {
+            previous = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(job).and("leaseUntil").lt(now)),
+                    new Update()
+                            .set("owner", instanceId)
+                            .inc("fencingToken", 1)
+                            .set("leaseUntil", leaseUntil)
+                            .set("acquiredAt", now)
+                            .set("lastRunStartedAt", now),
+                    FindAndModifyOptions.options().upsert(true),
+                    JobLease.class);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+
+        if (previous != null && previous.getOwner() != null) {
+            meterRegistry.counter("jobs.lease.handover", "job", job).increment();
+            log.info("Lease do job {} assumido de {}", job, previous.getOwner());
+            recordLag(job, previous, interval, now);
+        }
+        return new Lease(job, previous == null ? 1 : previous.getFencingToken() + 1);
+    }
+
+    // Atraso em relação ao horário previsto: fim da última execução (em qualquer instância) + intervalo
+    private void recordLag(String job, JobLease lease, Duration interval, LocalDateTime now) {
+        if (lease.getLastRunFinishedAt() == null) {
+            return;
+        }
+        Duration lag = Duration.between(lease.getLastRunFinishedAt().plus(interval), now);
+        Timer.builder("jobs.run.lag")
+                .description("Atraso do início do job em relação ao previsto")
+                .tag("job", job)
+                .register(meterRegistry)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    private void markFinished(Lease lease) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(lease.job()).and("fencingToken").is(lease.fencingToken())),
+                new Update().set("lastRunFinishedAt", LocalDateTime.now()),
+                JobLease.class);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    // Lease obtido para uma execução; fencingToken identifica o mandato do dono (renew, markFinished)
+    public record Lease(String job, long fencingToken) {
+    }
+
+    public static class LeaseLostException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public LeaseLostException(Lease lease) {
+            super("Lease do job " + lease.job() + " perdido (token " + lease.fencingToken() + ")");
+        }
+    }
+}
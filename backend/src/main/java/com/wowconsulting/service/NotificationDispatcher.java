@@ -0,0 +1,264 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.Notification.Status;
+import com.wowconsulting.model.Notification.Target;
+import com.wowconsulting.repository.NotificationRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Drena o outbox de notificações em lotes: agrupa mensagens para o mesmo destino,
+// limita os envios por ciclo e reagenda falhas com backoff exponencial
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    // Limite de caracteres de uma mensagem do Discord
+    static final int MAX_MESSAGE_LENGTH = 2000;
+    private static final String SEPARATOR = "\n\n";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private DiscordService discordService;
+
+    @Value("${notifications.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notifications.max-sends-per-cycle:10}")
+    private int maxSendsPerCycle;
+
+    @Value("${notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notifications.initial-backoff:5000}")
+    private long initialBackoffMillis;
+
+    @Value("${notifications.max-backoff:600000}")
+    private long maxBackoffMillis;
+
+    @Value("${notifications.lease:120000}")
+    private long leaseMillis;
+
+    // Tempo que notificações SENT/FAILED ficam no outbox antes do índice TTL removê-las
+    @Value("${notifications.retention:2592000000}")
+    private long retentionMillis;
+
+    // Resultados dos envios: o callback (thread do JDA) só enfileira; o Mongo é atualizado pela thread do dispatch
+    private final Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+
+    @Scheduled(fixedDelayString = "${notifications.dispatch-interval:2000}")
+    public void dispatch() {
+        applyResults();
+        List<Notification> claimed;
+        try {
+            claimed = claimBatch();
+        } catch (RuntimeException e) {
+            log.warn("Erro ao buscar notificações pendentes: {}", e.getMessage());
+            return;
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        List<OutgoingMessage> messages = coalesce(claimed, MAX_MESSAGE_LENGTH);
+        int sends = 0;
+        for (OutgoingMessage message : messages) {
+            if (sends >= maxSendsPerCycle) {
+                // Excedente volta para a fila sem contar como tentativa
+                release(message.notifications());
+                continue;
+            }
+            sends++;
+            send(message).whenComplete((ignored, error) -> results.add(new SendResult(message.notifications(), error)));
+        }
+    }
+
+    // Falha ao gravar deixa a notificação em SENDING; ela volta à fila quando o lease expira
+    private void applyResults() {
+        SendResult result;
+        while ((result = results.poll()) != null) {
+            try {
+                if (result.error() == null) {
+                    markSent(result.notifications());
+                } else {
+                    markFailed(result.notifications(), result.error());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Erro ao registrar resultado de envio de notificações: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Reserva até batchSize notificações com três consultas, independentemente do tamanho do lote
+    private List<Notification> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query pending = new Query(claimable(now))
+                .with(Sort.by("createdAt"))
+                .limit(batchSize);
+        pending.fields().include("_id");
+        List<String> ids = mongoTemplate.find(pending, Notification.class).stream()
+                .map(Notification::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        Query claim = new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now)));
+        Update update = new Update()
+                .set("status", Status.SENDING)
+                .set("claimToken", claimToken)
+                .set("lockedUntil", now.plusNanos(leaseMillis * 1_000_000));
+        mongoTemplate.updateMulti(claim, update, Notification.class);
+
+        return notificationRepository.findByClaimTokenOrderByCreatedAt(claimToken);
+    }
+
+    // Pendentes vencidas ou em envio com a reserva expirada (instância que caiu no meio do envio)
+    private Criteria claimable(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(Status.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(Status.SENDING).and("lockedUntil").lt(now)
+        );
+    }
+
+    private CompletableFuture<Void> send(OutgoingMessage message) {
+        try {
+            return switch (message.target()) {
+                case APPOINTMENTS_CHANNEL -> discordService.deliverToAppointmentsChannel(message.content());
+                case GUILD_OWNER -> discordService.deliverToOwner(message.content());
+                case DIRECT_MESSAGE -> discordService.deliverDirectMessage(message.recipientId(), message.content());
+            };
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void markSent(List<Notification> notifications) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("_id").in(ids(notifications)).and("status").is(Status.SENDING));
+        Update update = new Update()
+                .set("status", Status.SENT)
+                .set("sentAt", now)
+                .set("purgeAt", purgeAt(now))
+                .unset("claimToken")
+                .unset("lockedUntil");
+        mongoTemplate.updateMulti(query, update, Notification.class);
+    }
+
+    private void markFailed(List<Notification> notifications, Throwable error) {
+        String reason = error.getCause() != null ? error.getCause().getMessage() : error.getMessage();
+        LocalDateTime now = LocalDateTime.now();
+        for (Notification notification : notifications) {
+            int attempts = notification.getAttempts() + 1;
+            Update update = new Update()
+                    .set("attempts", attempts)
+                    .set("lastError", reason)
+                    .unset("claimToken")
+                    .unset("lockedUntil");
+            if (attempts >= maxAttempts) {
+                update.set("status", Status.FAILED)
+                        .set("purgeAt", purgeAt(now));
+                log.warn("Notificação {} descartada após {} tentativas: {}", notification.getId(), attempts, reason);
+            } else {
+                update.set("status", Status.PENDING)
+                        .set("nextAttemptAt", now.plusNanos(backoffMillis(attempts) * 1_000_000));
+            }
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(notification.getId()).and("status").is(Status.SENDING)),
+                    update, Notification.class);
+        }
+    }
+
+    private void release(List<Notification> notifications) {
+        Query query = new Query(Criteria.where("_id").in(ids(notifications)).and("status").is(Status.SENDING));
+        Update update = new Update()
+                .set("status", Status.PENDING)
+                .unset("claimToken")
+                .unset("lockedUntil");
+        mongoTemplate.updateMulti(query, update, Notification.class);
+    }
+
+    LocalDateTime purgeAt(LocalDateTime finishedAt) {
+        return finishedAt.plusNanos(retentionMillis * 1_000_000);
+    }
+
+    long backoffMillis(int attempts) {
+        long backoff = initialBackoffMillis << Math.min(attempts - 1, 20);
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+    private static List<String> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
+    }
+
+    // Agrupa por destino mantendo a ordem de criação e divide em mensagens de até maxLength caracteres
+    static List<OutgoingMessage> coalesce(List<Notification> notifications, int maxLength) {
+        Map<String, List<Notification>> byDestination = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String key = notification.getTarget() + ":" + Objects.toString(notification.getRecipientId(), "");
+            byDestination.computeIfAbsent(key, k -> new ArrayList<>()).add(notification);
+        }
+
+        List<OutgoingMessage> messages = new ArrayList<>();
+        for (List<Notification> group : byDestination.values()) {
+            Target target = group.get(0).getTarget();
+            String recipientId = group.get(0).getRecipientId();
+            StringBuilder content = new StringBuilder();
+            List<Notification> included = new ArrayList<>();
+
+            for (Notification notification : group) {
+                String text = truncate(notification.getContent(), maxLength);
+                if (!included.isEmpty() && content.length() + SEPARATOR.length() + text.length() > maxLength) {
+                    messages.add(new OutgoingMessage(target, recipientId, content.toString(), included));
+                    content = new StringBuilder();
+                    included = new ArrayList<>();
+                }
+                if (!included.isEmpty()) {
+                    content.append(SEPARATOR);
+                }
+                content.append(text);
+                included.add(notification);
+            }
+            messages.add(new OutgoingMessage(target, recipientId, content.toString(), included));
+        }
+        return messages;
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength - 1) + "…";
+    }
+
+    record OutgoingMessage(Target target, String recipientId, String content, List<Notification> notifications) {
+    }
+
+    private record SendResult(List<Notification> notifications, Throwable error) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.repository.NotificationRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+// Ponto de entrada das notificações: grava no outbox e retorna, sem nenhuma chamada ao Discord
+@Service
+public class NotificationOutboxService {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    public void enqueue(Notification... notifications) {
+        // Um único insertMany por chamada
+        notificationRepository.insert(Arrays.asList(notifications));
+    }
+
+    public void enqueueReminder(String discordId, String appointmentInfo) {
+        enqueue(Notification.reminder(discordId, appointmentInfo));
+    }
+
+    // Lembrete automático com id derivado do agendamento: reenfileirar o mesmo lembrete não duplica a mensagem.
+    // Retorna false quando a notificação já estava no outbox.
+    public boolean enqueueDueReminder(String appointmentId, String discordId, String appointmentInfo) {
+        Notification reminder = Notification.reminder(discordId, appointmentInfo);
+        reminder.setId(reminderId(appointmentId));
+        try {
+            notificationRepository.insert(reminder);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Retira o lembrete se ainda não foi reservado para envio
+    public void withdrawReminder(String appointmentId) {
+        notificationRepository.deleteByIdAndStatus(reminderId(appointmentId), Notification.Status.PENDING);
+    }
+
+    static String reminderId(String appointmentId) {
+        return "reminder-" + appointmentId;
+    }
+}
@@ -0,0 +1,140 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import com.wowconsulting.repository.ReactiveAppointmentRepository;
+import com.wowconsulting.repository.ReactiveNotificationRepository;
+import com.wowconsulting.repository.ReactiveTimeSlotRepository;
+import com.wowconsulting.repository.ReactiveUserRepository;
+import com.wowconsulting.dto.AppointmentListItem;
+import com.wowconsulting.dto.AppointmentRequest;
+import com.wowconsulting.util.JwtClaims;
+import com.wowconsulting.util.JwtUtil;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Mesmo fluxo de AppointmentService/TimeSlotService sobre o driver reativo: nenhuma thread fica
+// bloqueada esperando o MongoDB. Os índices em memória e os eventos de horário são compartilhados.
+@Service
+@Profile("reactive")
+public class ReactiveBookingService {
+
+    @Autowired
+    private ReactiveTimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private ReactiveAppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveNotificationRepository notificationRepository;
+
+    @Autowired
+    private TimeSlotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
+
+    // Equivalente a AuthService.validateToken; Mono vazio para token inválido ou expirado
+    public Mono<User> authenticate(String token) {
+        Optional<User> cached = tokenCache.get(token);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+
+        JwtClaims claims;
+        try {
+            claims = jwtUtil.parse(token);
+        } catch (Exception e) {
+            return Mono.empty();
+        }
+        if (claims.isExpired()) {
+            return Mono.empty();
+        }
+        return userRepository.findByDiscordId(claims.subject())
+                .doOnNext(user -> tokenCache.put(token, claims.subject(), claims.expiration(), user));
+    }
+
+    public Mono<List<TimeSlot>> getAvailableTimeSlots(LocalDate date) {
+        if (date == null) {
+            LocalDateTime now = LocalDateTime.now();
+            return availabilityIndex.findAvailableAfter(now)
+                    .map(Mono::just)
+                    .orElseGet(() -> timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(now)
+                            .collectList());
+        }
+
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime endOfDay = date.atTime(23, 59, 59);
+        return availabilityIndex.findAvailableBetween(startOfDay, endOfDay)
+                .map(Mono::just)
+                .orElseGet(() -> timeSlotRepository.findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(
+                        startOfDay, endOfDay).collectList());
+    }
+
+    public Flux<AppointmentListItem> getUserAppointmentItems(User user) {
+        return appointmentRepository.findByUser_IdOrderByScheduledTimeDesc(user.getId(), AppointmentListItem.class);
+    }
+
+    public Mono<Appointment> createAppointment(AppointmentRequest request, User user) {
+        Appointment appointment = new Appointment();
+        appointment.setId(new ObjectId().toHexString());
+        appointment.setUser(user);
+        appointment.setBnetId(request.getBnetId());
+        appointment.setDiscordTag(request.getDiscordTag());
+        appointment.setCharacterClass(request.getCharacterClass());
+        appointment.setSpecialization(request.getSpecialization());
+        appointment.setKnowledgeLevel(request.getKnowledgeLevel());
+        appointment.setCurrentContent(request.getCurrentContent());
+        appointment.setExpectations(request.getExpectations());
+
+        return timeSlotRepository.claimSlot(request.getTimeSlotId(), appointment)
+                .switchIfEmpty(Mono.defer(() -> timeSlotRepository.existsById(request.getTimeSlotId())
+                        .flatMap(exists -> Mono.<TimeSlot>error(new RuntimeException(
+                                exists ? "Horário não está mais disponível" : "Horário não encontrado")))))
+                .flatMap(timeSlot -> {
+                    eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.TAKEN, timeSlot));
+                    appointment.setScheduledTime(timeSlot.getStartTime());
+                    // Se a gravação falhar, devolve o horário (compensação) e propaga o erro original
+                    return appointmentRepository.insert(appointment)
+                            .onErrorResume(e -> timeSlotRepository.releaseSlot(timeSlot.getId(), appointment.getId())
+                                    .doOnNext(released -> eventPublisher.publishEvent(
+                                            TimeSlotChangedEvent.of(ChangeType.RELEASED, released)))
+                                    .then(Mono.error(e)));
+                })
+                .flatMap(saved -> {
+                    collectionVersions.appointmentsChanged(user.getDiscordId());
+                    String appointmentInfo = AppointmentService.formatAppointmentInfo(saved);
+                    return notificationRepository.insert(List.of(
+                                    Notification.appointmentCreated(appointmentInfo),
+                                    Notification.appointmentCreatedForOwner(appointmentInfo)))
+                            .then(Mono.just(saved));
+                });
+    }
+}
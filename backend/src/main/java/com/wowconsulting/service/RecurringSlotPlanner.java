@@ -0,0 +1,78 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.dto.RecurringSlotReport.Outcome;
+import com.wowconsulting.dto.RecurringTimeSlotRequest;
+import com.wowconsulting.util.IntervalSet;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Expande regras de recorrência em horários candidatos e decide, em memória, quais podem ser criados
+final class RecurringSlotPlanner {
+
+    private RecurringSlotPlanner() {
+    }
+
+    static List<Candidate> expand(RecurringTimeSlotRequest rule) {
+        LocalDate first = rule.getStartDate();
+        Set<DayOfWeek> weekdays = rule.getWeekdays() == null || rule.getWeekdays().isEmpty()
+                ? EnumSet.of(first.getDayOfWeek())
+                : EnumSet.copyOf(rule.getWeekdays());
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int day = 0; day < rule.getWeeks() * 7; day++) {
+            LocalDate date = first.plusDays(day);
+            if (!weekdays.contains(date.getDayOfWeek())) {
+                continue;
+            }
+            for (RecurringTimeSlotRequest.SlotTime slot : rule.getSlots()) {
+                LocalDateTime start = date.atTime(slot.getStartTime());
+                LocalDateTime end = date.atTime(slot.getEndTime());
+                if (!end.isAfter(start)) {
+                    end = end.plusDays(1);
+                }
+                candidates.add(new Candidate(start, end));
+            }
+        }
+        candidates.sort(Comparator.comparing(Candidate::start).thenComparing(Candidate::end));
+        return candidates;
+    }
+
+    // Mesma regra do endpoint antigo: o horário informado repetido a cada semana
+    static List<Candidate> weekly(LocalDateTime start, LocalDateTime end, int weeks) {
+        Duration duration = Duration.between(start, end);
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < weeks; i++) {
+            LocalDateTime weeklyStart = start.plusWeeks(i);
+            candidates.add(new Candidate(weeklyStart, weeklyStart.plus(duration)));
+        }
+        return candidates;
+    }
+
+    // `occupied` recebe os candidatos aceitos, então candidatos que se sobrepõem entre si também conflitam
+    static List<Outcome> plan(List<Candidate> candidates, IntervalSet occupied, LocalDateTime now) {
+        List<Outcome> outcomes = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (candidate.start().isBefore(now)) {
+                outcomes.add(Outcome.PAST);
+            } else if (occupied.overlaps(candidate.start(), candidate.end(), null)) {
+                outcomes.add(Outcome.CONFLICT);
+            } else {
+                occupied.put("candidate-" + i, candidate.start(), candidate.end());
+                outcomes.add(Outcome.ACCEPTED);
+            }
+        }
+        return outcomes;
+    }
+
+    record Candidate(LocalDateTime start, LocalDateTime end) {
+    }
+}
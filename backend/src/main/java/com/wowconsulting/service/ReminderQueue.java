@@ -0,0 +1,230 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.repository.AppointmentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Fila em memória, ordenada pelo horário de disparo, dos lembretes de agendamentos SCHEDULED.
+// Após a carga inicial, só relê do MongoDB os agendamentos alterados desde a última varredura.
+@Component
+public class ReminderQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderQueue.class);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${reminders.lead-minutes:120}")
+    private long leadMinutes;
+
+    // Margem para alterações gravadas por outras instâncias com relógio levemente diferente
+    @Value("${reminders.sync-overlap-seconds:60}")
+    private long syncOverlapSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<ReminderKey, DueReminder> queue = new TreeMap<>();
+    private final Map<String, ReminderKey> keysById = new HashMap<>();
+    private LocalDateTime lastSync;
+    // Incrementado a cada INVALIDATE: uma sincronização iniciada antes dele não grava lastSync
+    private long generation;
+
+    // Entrega os lembretes vencidos: enqueue grava cada um no outbox (idempotente por agendamento; true quando
+    // esta chamada criou a notificação) e só depois reminderSentAt é marcado. Se o agendamento deixou de ser
+    // elegível, withdraw retira a notificação recém-criada. Uma falha devolve o lembrete e os seguintes à fila.
+    // Retorna os lembretes entregues e marcados.
+    public List<DueReminder> deliverDueReminders(Predicate<DueReminder> enqueue, Consumer<DueReminder> withdraw) {
+        LocalDateTime now = LocalDateTime.now();
+        sync(now);
+
+        List<DueReminder> due = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!queue.isEmpty() && !queue.firstKey().fireAt().isAfter(now)) {
+                DueReminder reminder = queue.pollFirstEntry().getValue();
+                keysById.remove(reminder.appointmentId());
+                // Agendamentos que já começaram não recebem lembrete
+                if (reminder.scheduledTime().isAfter(now)) {
+                    due.add(reminder);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<DueReminder> delivered = new ArrayList<>();
+        for (int i = 0; i < due.size(); i++) {
+            DueReminder reminder = due.get(i);
+            boolean created;
+            try {
+                created = enqueue.test(reminder);
+                if (appointmentRepository.markReminderSent(reminder.appointmentId(), now)) {
+                    delivered.add(reminder);
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                // O updatedAt dos restantes não mudou, então a sincronização incremental não os traria de volta;
+                // na nova tentativa o outbox já tem a notificação e não a duplica
+                log.warn("Erro ao entregar lembrete do agendamento {}: {}", reminder.appointmentId(), e.getMessage());
+                requeue(due.subList(i, due.size()));
+                break;
+            }
+            // Cancelado (ou já marcado) depois da última sincronização
+            if (created) {
+                try {
+                    withdraw.accept(reminder);
+                } catch (RuntimeException e) {
+                    log.warn("Erro ao retirar lembrete do agendamento {}: {}", reminder.appointmentId(), e.getMessage());
+                }
+            }
+        }
+        return delivered;
+    }
+
+    private void requeue(List<DueReminder> reminders) {
+        lock.lock();
+        try {
+            for (DueReminder reminder : reminders) {
+                // Uma sincronização concorrente pode já ter recolocado (ou alterado) o agendamento
+                if (!keysById.containsKey(reminder.appointmentId())) {
+                    ReminderKey key = new ReminderKey(reminder.scheduledTime().minusMinutes(leadMinutes), reminder.appointmentId());
+                    queue.put(key, reminder);
+                    keysById.put(reminder.appointmentId(), key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Aplica alterações de agendamentos assim que o change stream as entrega, sem esperar a próxima varredura
+    @EventListener
+    public void onAppointmentChanged(MongoChangeEvent<Appointment> event) {
+        lock.lock();
+        try {
+            if (lastSync == null) {
+                // Ainda sem carga inicial; a primeira varredura lê tudo
+                return;
+            }
+            switch (event.getOperation()) {
+                case UPSERT -> apply(event.getDocument(), LocalDateTime.now());
+                case DELETE -> {
+                    ReminderKey previous = keysById.remove(event.getDocumentId());
+                    if (previous != null) {
+                        queue.remove(previous);
+                    }
+                }
+                case INVALIDATE -> {
+                    queue.clear();
+                    keysById.clear();
+                    lastSync = null;
+                    generation++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sync(LocalDateTime now) {
+        LocalDateTime since;
+        long startedAt;
+        lock.lock();
+        try {
+            since = lastSync;
+            startedAt = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        List<Appointment> changed;
+        boolean fullLoad = since == null;
+        try {
+            if (fullLoad) {
+                changed = appointmentRepository.findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter(
+                        Appointment.AppointmentStatus.SCHEDULED, now);
+            } else {
+                changed = appointmentRepository.findByUpdatedAtAfter(since.minusSeconds(syncOverlapSeconds));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Erro ao sincronizar fila de lembretes: {}", e.getMessage());
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (generation != startedAt) {
+                // INVALIDATE durante a leitura: descarta o resultado e mantém a recarga completa pendente
+                return;
+            }
+            changed.forEach(appointment -> apply(appointment, now));
+            lastSync = now;
+        } finally {
+            lock.unlock();
+        }
+        if (fullLoad) {
+            log.debug("Fila de lembretes carregada: {} agendamentos", queue.size());
+        }
+    }
+
+    private void apply(Appointment appointment, LocalDateTime now) {
+        ReminderKey previous = keysById.remove(appointment.getId());
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        boolean pending = appointment.getStatus() == Appointment.AppointmentStatus.SCHEDULED
+                && appointment.getReminderSentAt() == null
+                && appointment.getScheduledTime() != null
+                && appointment.getScheduledTime().isAfter(now)
+                && appointment.getUserSummary() != null;
+        if (!pending) {
+            return;
+        }
+        ReminderKey key = new ReminderKey(appointment.getScheduledTime().minusMinutes(leadMinutes), appointment.getId());
+        queue.put(key, new DueReminder(
+                appointment.getId(),
+                appointment.getScheduledTime(),
+                appointment.getUserSummary().discordId(),
+                appointment.getCharacterClass(),
+                appointment.getSpecialization()
+        ));
+        keysById.put(appointment.getId(), key);
+    }
+
+    private record ReminderKey(LocalDateTime fireAt, String appointmentId) implements Comparable<ReminderKey> {
+        @Override
+        public int compareTo(ReminderKey other) {
+            int byTime = fireAt.compareTo(other.fireAt);
+            return byTime != 0 ? byTime : appointmentId.compareTo(other.appointmentId);
+        }
+    }
+
+    public record DueReminder(String appointmentId, LocalDateTime scheduledTime, String discordId,
+                              String characterClass, String specialization) {
+    }
+}
@@ -0,0 +1,304 @@
+package com.wowconsulting.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wowconsulting.dto.SlotDelta;
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.TimeSlot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Envia as alterações de horários (SlotDelta) para os clientes conectados via Server-Sent Events.
+// As conexões ficam em modo assíncrono no servlet container: um assinante ocioso não ocupa thread.
+// Cada alteração é serializada uma só vez e entra na fila limitada de cada assinante; um pool pequeno
+// esvazia as filas, de modo que um cliente lento só atrasa a si mesmo. Fila cheia ou envio preso por
+// mais de send-timeout derruba o cliente (o EventSource reconecta e recarrega a lista).
+// send/complete do SseEmitter sincronizam no próprio emitter: só as threads de envio chamam o emitter.
+// As demais apenas marcam o assinante como encerrado; a escrita presa em si falha pelo timeout de escrita
+// do Tomcat (server.tomcat.connection-timeout), que devolve a thread ao pool.
+// Com change streams, alterações feitas em outras instâncias também chegam aos assinantes desta; o eco
+// das escritas locais (mesmo updatedAt já difundido) é descartado.
+@Component
+public class SlotEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotEventBroadcaster.class);
+
+    static final String EVENT_NAME = "slot";
+    private static final long LOCAL_ECHO_WINDOW_NANOS = 60_000_000_000L;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${timeslots.events.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${timeslots.events.timeout:1800000}")
+    private long timeoutMillis;
+
+    @Value("${timeslots.events.reconnect-delay:5000}")
+    private long reconnectDelayMillis;
+
+    @Value("${timeslots.events.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${timeslots.events.send-timeout:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${timeslots.events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${change-streams.enabled:false}")
+    private boolean changeStreamsEnabled;
+
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    // Últimas alterações locais por horário, para reconhecer o eco delas no change stream
+    private final Map<String, LocalChange> recentLocalChanges = new ConcurrentHashMap<>();
+    private ExecutorService senders;
+    private Executor executor;
+
+    @PostConstruct
+    public void init() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slot-events-");
+        threadFactory.setDaemon(true);
+        senders = Executors.newFixedThreadPool(sendThreads, threadFactory);
+        executor = senders;
+    }
+
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Limite de conexões de eventos atingido");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> {
+            subscribers.remove(emitter);
+            emitter.complete();
+        });
+        emitter.onError(error -> subscribers.remove(emitter));
+        Subscriber subscriber = register(emitter);
+
+        // Intervalo de reconexão do EventSource quando a conexão expira ou cai
+        enqueue(subscriber, SseEmitter.event().reconnectTime(reconnectDelayMillis).comment("ok"));
+        return emitter;
+    }
+
+    Subscriber register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, queueCapacity);
+        subscribers.put(emitter, subscriber);
+        return subscriber;
+    }
+
+    @EventListener
+    public void onTimeSlotChanged(TimeSlotChangedEvent event) {
+        if (changeStreamsEnabled) {
+            recentLocalChanges.put(event.getSlotId(), LocalChange.of(event));
+        }
+        broadcast(event);
+    }
+
+    // Alterações de qualquer instância vistas pelo change stream; INVALIDATE não vira delta (os clientes
+    // recarregam a lista ao reconectar)
+    @EventListener
+    public void onDocumentChanged(MongoChangeEvent<TimeSlot> event) {
+        TimeSlotChangedEvent change = switch (event.getOperation()) {
+            case UPSERT -> new TimeSlotChangedEvent(ChangeType.UPDATED, event.getDocumentId(), event.getDocument());
+            case DELETE -> TimeSlotChangedEvent.deleted(event.getDocumentId());
+            case INVALIDATE -> null;
+        };
+        if (change == null || isEchoOfLocalChange(change)) {
+            return;
+        }
+        broadcast(change);
+    }
+
+    private boolean isEchoOfLocalChange(TimeSlotChangedEvent change) {
+        LocalChange local = recentLocalChanges.get(change.getSlotId());
+        if (local == null || !local.matches(change)) {
+            return false;
+        }
+        recentLocalChanges.remove(change.getSlotId(), local);
+        return true;
+    }
+
+    private void broadcast(TimeSlotChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(SlotDelta.of(event));
+        } catch (JsonProcessingException e) {
+            log.warn("Erro ao serializar alteração do horário {}: {}", event.getSlotId(), e.getMessage());
+            return;
+        }
+        subscribers.values().forEach(subscriber ->
+                enqueue(subscriber, SseEmitter.event().name(EVENT_NAME).data(payload)));
+    }
+
+    // Mantém a conexão aberta em proxies, descobre clientes que já desconectaram e descarta envios presos
+    @Scheduled(fixedDelayString = "${timeslots.events.heartbeat-interval:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        // Eco que não chegou (escrita sem alteração, change stream parado) não fica para sempre
+        recentLocalChanges.values().removeIf(change -> now - change.recordedAt() > LOCAL_ECHO_WINDOW_NANOS);
+        subscribers.values().forEach(subscriber -> {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutMillis * 1_000_000) {
+                // Não chama o emitter (o envio preso detém o lock dele); a thread de envio o encerra ao sair da escrita
+                close(subscriber, new IOException("Envio excedeu " + sendTimeoutMillis + " ms"));
+            } else {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Envios presos seguram o lock do emitter; essas conexões o container fecha ao parar
+        subscribers.values().stream()
+                .filter(subscriber -> subscriber.sendingSince == 0)
+                .forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closeReason != null) {
+            return;
+        }
+        if (!subscriber.pending.offer(event)) {
+            close(subscriber, new IOException("Cliente lento: fila de eventos cheia"));
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (subscriber.closeReason == null && (event = subscriber.pending.poll()) != null) {
+                if (!send(subscriber, event)) {
+                    subscriber.pending.clear();
+                    return;
+                }
+            }
+            if (subscriber.closeReason != null) {
+                subscriber.pending.clear();
+                finish(subscriber, subscriber.closeReason);
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Evento enfileirado entre o último poll e a liberação acima
+        if (!subscriber.pending.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+            return false;
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    // Chamado de qualquer thread: tira o assinante da difusão sem tocar no emitter; o drain o finaliza
+    private void close(Subscriber subscriber, Throwable reason) {
+        if (subscribers.remove(subscriber.emitter) == null) {
+            return;
+        }
+        log.debug("Assinante de eventos removido: {}", reason.getMessage());
+        subscriber.closeReason = reason;
+        scheduleDrain(subscriber);
+    }
+
+    // Só nas threads de envio, fora de uma escrita
+    private void drop(Subscriber subscriber, Throwable reason) {
+        subscribers.remove(subscriber.emitter);
+        finish(subscriber, reason);
+    }
+
+    private void finish(Subscriber subscriber, Throwable reason) {
+        if (!subscriber.finished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            subscriber.emitter.completeWithError(reason);
+        } catch (RuntimeException ignored) {
+            // Já finalizado
+        }
+    }
+
+    // Estado difundido localmente: updatedAt do horário, ou deleted
+    private record LocalChange(boolean deleted, LocalDateTime updatedAt, long recordedAt) {
+        static LocalChange of(TimeSlotChangedEvent event) {
+            TimeSlot slot = event.getSlot();
+            return new LocalChange(slot == null, slot != null ? slot.getUpdatedAt() : null, System.nanoTime());
+        }
+
+        boolean matches(TimeSlotChangedEvent remote) {
+            TimeSlot slot = remote.getSlot();
+            if (slot == null) {
+                return deleted;
+            }
+            return !deleted && updatedAt != null && updatedAt.equals(slot.getUpdatedAt());
+        }
+    }
+
+    static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        // Definido por close(); a próxima passagem do drain encerra o emitter
+        private volatile Throwable closeReason;
+        // System.nanoTime() do envio em andamento; 0 quando ocioso
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.Appointment.AppointmentStatus;
+import com.wowconsulting.model.ReconciliationRun;
+import com.wowconsulting.model.ReconciliationRun.Status;
+import com.wowconsulting.repository.AppointmentRepository;
+import com.wowconsulting.repository.ReconciliationRunRepository;
+import com.wowconsulting.repository.TimeSlotRepository;
+import com.wowconsulting.repository.TimeSlotRepositoryCustom.AppointmentRef;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Corrige horários inconsistentes com o status dos agendamentos sem carregar os documentos na JVM:
+// duas updateMany para o campo isAvailable e, para horários que apontam para agendamentos CANCELLED ou
+// removidos, consultas de status em lotes seguidas de um bulk write. O progresso fica em slot_reconciliation_runs.
+@Service
+public class SlotReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotReconciliationService.class);
+
+    static final String JOB = "slot-reconciliation";
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Autowired
+    private TimeSlotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private LeasedJobRunner jobRunner;
+
+    @Value("${jobs.slot-reconciliation.interval:21600000}")
+    private long interval;
+
+    @Value("${jobs.slot-reconciliation.batch-size:500}")
+    private int batchSize;
+
+    // A reserva grava o horário antes de inserir o agendamento (AppointmentService.bookAppointment):
+    // um agendamento inexistente só é órfão se o horário não foi alterado dentro desta janela
+    @Value("${jobs.slot-reconciliation.missing-grace:600000}")
+    private long missingGraceMillis;
+
+    // Execuções pedidas pela API rodam fora da thread da requisição
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("slot-reconciliation-"));
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(fixedDelayString = "${jobs.slot-reconciliation.interval:21600000}",
+            initialDelayString = "${jobs.slot-reconciliation.interval:21600000}")
+    public void scheduledReconciliation() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            execute(runRepository.insert(new ReconciliationRun(false, jobRunner.getInstanceId())));
+        } catch (RuntimeException e) {
+            log.warn("Erro ao registrar reconciliação de horários: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Registra a execução e a dispara em segundo plano; acompanhe pelo id retornado
+    public ReconciliationRun start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Já existe uma reconciliação em andamento nesta instância");
+        }
+        try {
+            ReconciliationRun run = runRepository.insert(new ReconciliationRun(dryRun, jobRunner.getInstanceId()));
+            executor.execute(() -> {
+                try {
+                    execute(run);
+                } finally {
+                    running.set(false);
+                }
+            });
+            return run;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public Optional<ReconciliationRun> getRun(String id) {
+        return runRepository.findById(id);
+    }
+
+    void execute(ReconciliationRun run) {
+        boolean ran = jobRunner.runExclusive(JOB, Duration.ofMillis(interval), lease -> reconcile(run, lease));
+        if (!ran) {
+            run.finish(Status.SKIPPED, "Outra instância detém o lease da reconciliação");
+            runRepository.save(run);
+        }
+    }
+
+    private void reconcile(ReconciliationRun run, LeasedJobRunner.Lease lease) {
+        boolean dryRun = run.isDryRun();
+        try {
+            progress(run, "unavailable-without-appointment");
+            run.setUnavailableWithoutAppointment(timeSlotRepository.fixUnavailableWithoutAppointment(dryRun));
+
+            jobRunner.renew(lease);
+            progress(run, "available-with-appointment");
+            run.setAvailableWithAppointment(timeSlotRepository.fixAvailableWithAppointment(dryRun));
+
+            jobRunner.renew(lease);
+            progress(run, "cancelled-appointments");
+            try (Stream<AppointmentRef> refs = timeSlotRepository.streamAppointmentRefs()) {
+                Iterator<AppointmentRef> iterator = refs.iterator();
+                List<AppointmentRef> batch = new ArrayList<>(batchSize);
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == batchSize || !iterator.hasNext()) {
+                        releaseStale(run, batch);
+                        batch.clear();
+                        jobRunner.renew(lease);
+                        runRepository.save(run);
+                    }
+                }
+            }
+
+            run.finish(Status.COMPLETED, null);
+            runRepository.save(run);
+        } catch (RuntimeException e) {
+            run.finish(Status.FAILED, e.getMessage());
+            runRepository.save(run);
+            throw e;
+        } finally {
+            // O índice de livres não recebe eventos das updateMany; recarrega (e troca a versão dos ETags) se algo mudou
+            if (!dryRun && run.getTotalFixed() > 0) {
+                availabilityIndex.rebuild();
+            }
+        }
+        log.info("Reconciliação de horários{}: {} liberados sem agendamento, {} marcados como ocupados, "
+                        + "{} liberados de agendamentos cancelados, {} de agendamentos inexistentes",
+                dryRun ? " (dry-run)" : "", run.getUnavailableWithoutAppointment(), run.getAvailableWithAppointment(),
+                run.getCancelledAppointment(), run.getMissingAppointment());
+    }
+
+    // Um find por lote no índice _id de appointments; libera quem aponta para CANCELLED ou para id inexistente
+    // (este só depois de missingGraceMillis sem alteração no horário, para não liberar uma reserva em andamento)
+    private void releaseStale(ReconciliationRun run, List<AppointmentRef> batch) {
+        LocalDateTime graceCutoff = LocalDateTime.now().minusNanos(missingGraceMillis * 1_000_000);
+        Map<String, AppointmentStatus> statuses = appointmentRepository.findStatusesByIds(
+                batch.stream().map(AppointmentRef::appointmentId).toList());
+        List<AppointmentRef> stale = new ArrayList<>();
+        for (AppointmentRef ref : batch) {
+            AppointmentStatus status = statuses.get(ref.appointmentId());
+            if (status == null) {
+                if (ref.updatedAt() == null || ref.updatedAt().isAfter(graceCutoff)) {
+                    continue;
+                }
+                run.setMissingAppointment(run.getMissingAppointment() + 1);
+                stale.add(ref);
+            } else if (status == AppointmentStatus.CANCELLED) {
+                run.setCancelledAppointment(run.getCancelledAppointment() + 1);
+                stale.add(ref);
+            }
+        }
+        run.setScannedBookedSlots(run.getScannedBookedSlots() + batch.size());
+        if (!run.isDryRun()) {
+            timeSlotRepository.releaseSlots(stale);
+        }
+    }
+
+    private void progress(ReconciliationRun run, String phase) {
+        run.setPhase(phase);
+        runRepository.save(run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,228 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.repository.TimeSlotRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Índice em memória dos horários disponíveis, ordenado por startTime.
+// Atende /timeslots/available sem consultar o MongoDB; enquanto não estiver carregado, o serviço usa o banco.
+@Component
+public class TimeSlotAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeSlotAvailabilityIndex.class);
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private CollectionVersions collectionVersions;
+
+    @Value("${timeslots.availability-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Entries entries = new Entries();
+    private volatile boolean ready = false;
+    private volatile LocalDateTime lastRebuildAt;
+
+    // Alterações recebidas durante um rebuild são reaplicadas sobre o novo snapshot
+    private final ReentrantLock mutationLock = new ReentrantLock();
+    private boolean rebuilding = false;
+    private final List<TimeSlotChangedEvent> pendingDuringRebuild = new ArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Recarga completa periódica como garantia contra escritas feitas fora dos serviços
+    @Scheduled(fixedDelayString = "${timeslots.availability-index.reload-interval:300000}",
+            initialDelayString = "${timeslots.availability-index.reload-interval:300000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        mutationLock.lock();
+        try {
+            rebuilding = true;
+            pendingDuringRebuild.clear();
+        } finally {
+            mutationLock.unlock();
+        }
+
+        List<TimeSlot> available;
+        try {
+            available = timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            mutationLock.lock();
+            try {
+                rebuilding = false;
+                pendingDuringRebuild.clear();
+            } finally {
+                mutationLock.unlock();
+            }
+            log.warn("Erro ao carregar índice de horários disponíveis: {}", e.getMessage());
+            return;
+        }
+
+        Entries fresh = new Entries();
+        available.forEach(fresh::put);
+
+        mutationLock.lock();
+        try {
+            pendingDuringRebuild.forEach(event -> apply(fresh, event));
+            pendingDuringRebuild.clear();
+            entries = fresh;
+            rebuilding = false;
+            ready = true;
+            lastRebuildAt = LocalDateTime.now();
+        } finally {
+            mutationLock.unlock();
+        }
+        rebuilds.incrementAndGet();
+        // O snapshot novo pode trazer escritas que não passaram por eventos (outras instâncias, scripts)
+        collectionVersions.timeSlotsChanged();
+        log.debug("Índice de horários disponíveis recarregado: {} horários", available.size());
+    }
+
+    @EventListener
+    public void onTimeSlotChanged(TimeSlotChangedEvent event) {
+        mutationLock.lock();
+        try {
+            apply(entries, event);
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    // Alterações vistas pelo change stream, inclusive de outras instâncias; reaplicar as locais é inofensivo
+    @EventListener
+    public void onDocumentChanged(MongoChangeEvent<TimeSlot> event) {
+        switch (event.getOperation()) {
+            case UPSERT -> onTimeSlotChanged(new TimeSlotChangedEvent(ChangeType.UPDATED, event.getDocumentId(), event.getDocument()));
+            case DELETE -> onTimeSlotChanged(TimeSlotChangedEvent.deleted(event.getDocumentId()));
+            case INVALIDATE -> scheduledRebuild();
+        }
+    }
+
+    // Equivalente a findByIsAvailableTrueAndStartTimeAfterOrderByStartTime
+    public Optional<List<TimeSlot>> findAvailableAfter(LocalDateTime after) {
+        if (!isServing()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        List<TimeSlot> result = new ArrayList<>();
+        for (TimeSlot slot : entries.slots.tailMap(new SlotKey(after, ""), true).values()) {
+            if (slot.getStartTime().isAfter(after)) {
+                result.add(slot);
+            }
+        }
+        hits.incrementAndGet();
+        return Optional.of(result);
+    }
+
+    // Equivalente a findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime (limites exclusivos)
+    public Optional<List<TimeSlot>> findAvailableBetween(LocalDateTime start, LocalDateTime end) {
+        if (!isServing()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        List<TimeSlot> result = new ArrayList<>();
+        for (TimeSlot slot : entries.slots.subMap(new SlotKey(start, ""), true, new SlotKey(end, ""), false).values()) {
+            if (slot.getStartTime().isAfter(start)) {
+                result.add(slot);
+            }
+        }
+        hits.incrementAndGet();
+        return Optional.of(result);
+    }
+
+    public Stats getStats() {
+        return new Stats(enabled, ready, entries.slots.size(), hits.get(), misses.get(), rebuilds.get(), lastRebuildAt);
+    }
+
+    // false enquanto desligado ou sem carga: o serviço lê do banco e a versão dos ETags não acompanha
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    private static void apply(Entries target, TimeSlotChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED, RELEASED -> {
+                TimeSlot slot = event.getSlot();
+                if (slot != null && slot.isAvailable() && slot.getStartTime() != null) {
+                    target.put(slot);
+                } else {
+                    target.remove(event.getSlotId());
+                }
+            }
+            case TAKEN, DELETED -> target.remove(event.getSlotId());
+        }
+    }
+
+    private static class Entries {
+        private final ConcurrentSkipListMap<SlotKey, TimeSlot> slots = new ConcurrentSkipListMap<>();
+        private final Map<String, SlotKey> keysById = new ConcurrentHashMap<>();
+
+        void put(TimeSlot slot) {
+            remove(slot.getId());
+            SlotKey key = new SlotKey(slot.getStartTime(), slot.getId());
+            slots.put(key, slot);
+            keysById.put(slot.getId(), key);
+        }
+
+        void remove(String slotId) {
+            if (slotId == null) {
+                return;
+            }
+            SlotKey key = keysById.remove(slotId);
+            if (key != null) {
+                slots.remove(key);
+            }
+        }
+    }
+
+    private record SlotKey(LocalDateTime startTime, String id) implements Comparable<SlotKey> {
+        @Override
+        public int compareTo(SlotKey other) {
+            int byTime = startTime.compareTo(other.startTime);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+
+    public record Stats(boolean enabled, boolean ready, int size, long hits, long misses, long rebuilds,
+                        LocalDateTime lastRebuildAt) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.repository.TimeSlotRepository;
+import com.wowconsulting.util.IntervalSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice em memória dos intervalos de todos os horários (livres ou ocupados) que ainda não terminaram.
+// Responde "[start, end) sobrepõe algum horário?" sem ir ao banco; até carregar, usa a consulta no MongoDB.
+@Component
+public class TimeSlotIntervalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeSlotIntervalIndex.class);
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IntervalSet intervals = new IntervalSet();
+    private boolean rebuilding = false;
+    private final List<TimeSlotChangedEvent> pendingDuringRebuild = new ArrayList<>();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${timeslots.interval-index.reload-interval:3600000}",
+            initialDelayString = "${timeslots.interval-index.reload-interval:3600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<TimeSlot> active;
+        try {
+            active = timeSlotRepository.findActiveIntervals(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pendingDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("Erro ao carregar índice de intervalos: {}", e.getMessage());
+            return;
+        }
+
+        IntervalSet fresh = new IntervalSet();
+        active.forEach(slot -> fresh.put(slot.getId(), slot.getStartTime(), slot.getEndTime()));
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(event -> apply(fresh, event));
+            pendingDuringRebuild.clear();
+            intervals = fresh;
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onTimeSlotChanged(TimeSlotChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(intervals, event);
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Horários criados, editados ou removidos por outras instâncias (change stream)
+    @EventListener
+    public void onDocumentChanged(MongoChangeEvent<TimeSlot> event) {
+        switch (event.getOperation()) {
+            case UPSERT -> onTimeSlotChanged(new TimeSlotChangedEvent(ChangeType.UPDATED, event.getDocumentId(), event.getDocument()));
+            case DELETE -> onTimeSlotChanged(TimeSlotChangedEvent.deleted(event.getDocumentId()));
+            case INVALIDATE -> rebuild();
+        }
+    }
+
+    public boolean hasOverlap(LocalDateTime start, LocalDateTime end) {
+        return hasOverlap(start, end, null);
+    }
+
+    // Verifica se [start, end) sobrepõe algum horário, ignorando excludeId (usado na edição)
+    public boolean hasOverlap(LocalDateTime start, LocalDateTime end, String excludeId) {
+        if (ready) {
+            lock.readLock().lock();
+            try {
+                return intervals.overlaps(start, end, excludeId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return excludeId == null
+                ? timeSlotRepository.existsOverlapping(start, end)
+                : timeSlotRepository.existsOverlappingExcluding(start, end, excludeId);
+    }
+
+    private static void apply(IntervalSet target, TimeSlotChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                TimeSlot slot = event.getSlot();
+                if (slot != null && slot.getStartTime() != null && slot.getEndTime() != null) {
+                    target.put(slot.getId(), slot.getStartTime(), slot.getEndTime());
+                }
+            }
+            case DELETED -> target.remove(event.getSlotId());
+            case TAKEN, RELEASED -> {
+                // Reserva não altera o intervalo ocupado pelo horário
+            }
+        }
+    }
+}
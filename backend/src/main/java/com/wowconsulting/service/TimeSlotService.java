@@ -1,42 +1,117 @@
 package com.wowconsulting.service;
 
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
 import com.wowconsulting.model.TimeSlot;
 import com.wowconsulting.model.User;
 import com.wowconsulting.repository.TimeSlotRepository;
+import com.wowconsulting.dto.PageResponse;
+import com.wowconsulting.dto.RecurringSlotReport;
+import com.wowconsulting.dto.RecurringTimeSlotRequest;
+import com.wowconsulting.dto.TimeSlotListItem;
 import com.wowconsulting.dto.TimeSlotRequest;
+import com.wowconsulting.util.IntervalSet;
+import com.wowconsulting.util.KeysetCursor;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class TimeSlotService {
 
+    private static final Logger log = LoggerFactory.getLogger(TimeSlotService.class);
+
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private TimeSlotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private TimeSlotIntervalIndex intervalIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LeasedJobRunner jobRunner;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jobs.expired-slot-cleanup.interval:3600000}")
+    private long expiredSlotCleanupInterval;
+
+    @Value("${jobs.expired-slot-cleanup.batch-size:500}")
+    private int cleanupBatchSize;
+
+    @Value("${jobs.expired-slot-cleanup.max-batches:100}")
+    private int cleanupMaxBatches;
+
+    @Value("${jobs.expired-slot-cleanup.batch-pause:100}")
+    private long cleanupBatchPauseMillis;
+
     public List<TimeSlot> getAvailableTimeSlots() {
-        return timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        return availabilityIndex.findAvailableAfter(now)
+                .orElseGet(() -> timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(now));
     }
 
     public List<TimeSlot> getAvailableTimeSlotsForDate(LocalDate date) {
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(23, 59, 59);
 
-        return timeSlotRepository.findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(
-                startOfDay, endOfDay
-        );
+        return availabilityIndex.findAvailableBetween(startOfDay, endOfDay)
+                .orElseGet(() -> timeSlotRepository.findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(
+                        startOfDay, endOfDay
+                ));
     }
 
     public List<TimeSlot> getAllTimeSlots() {
         return timeSlotRepository.findAllByOrderByStartTime();
     }
 
+    public List<TimeSlotListItem> getAllTimeSlotItems() {
+        return timeSlotRepository.findAllByOrderByStartTime(TimeSlotListItem.class);
+    }
+
+    public PageResponse<TimeSlot> getTimeSlotsPage(String cursor, int limit) {
+        return page(cursor, limit, TimeSlot.class, slot -> new KeysetCursor(slot.getStartTime(), slot.getId()));
+    }
+
+    public PageResponse<TimeSlotListItem> getTimeSlotItemsPage(String cursor, int limit) {
+        return page(cursor, limit, TimeSlotListItem.class, item -> new KeysetCursor(item.startTime(), item.id()));
+    }
+
+    private <T> PageResponse<T> page(String cursor, int limit, Class<T> type, Function<T, KeysetCursor> cursorOf) {
+        int pageSize = PageResponse.clampLimit(limit);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        List<T> fetched = timeSlotRepository.findPageOrderByStartTime(after, pageSize + 1, type);
+        return PageResponse.of(fetched, pageSize, cursorOf);
+    }
+
+    public Stream<TimeSlot> streamAllTimeSlots() {
+        return timeSlotRepository.streamAllOrderByStartTime();
+    }
+
     public List<TimeSlot> getTimeSlotsForDateRange(LocalDateTime start, LocalDateTime end) {
         return timeSlotRepository.findByStartTimeBetweenOrderByStartTime(start, end);
     }
@@ -53,48 +128,72 @@ public class TimeSlotService {
         }
 
         // Verifica conflitos
-        List<TimeSlot> conflictingSlots = timeSlotRepository.findByStartTimeBetweenOrEndTimeBetween(
-                request.getStartTime(), request.getEndTime(),
-                request.getStartTime(), request.getEndTime()
-        );
-
-        if (!conflictingSlots.isEmpty()) {
+        if (intervalIndex.hasOverlap(request.getStartTime(), request.getEndTime())) {
             throw new RuntimeException("Já existe um horário cadastrado neste período");
         }
 
         TimeSlot timeSlot = new TimeSlot(request.getStartTime(), request.getEndTime(), admin);
         timeSlot.setDescription(request.getDescription());
 
-        return timeSlotRepository.save(timeSlot);
+        TimeSlot saved = timeSlotRepository.save(timeSlot);
+        eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.CREATED, saved));
+        return saved;
     }
 
     @Transactional
     public List<TimeSlot> createRecurringTimeSlots(TimeSlotRequest request, User admin, int weeks) {
-        List<TimeSlot> createdSlots = new java.util.ArrayList<>();
+        List<RecurringSlotPlanner.Candidate> candidates =
+                RecurringSlotPlanner.weekly(request.getStartTime(), request.getEndTime(), weeks);
+        return createFromCandidates(candidates, request.getDescription(), admin).created();
+    }
 
-        for (int i = 0; i < weeks; i++) {
-            LocalDateTime weeklyStartTime = request.getStartTime().plusWeeks(i);
-            LocalDateTime weeklyEndTime = request.getEndTime().plusWeeks(i);
+    @Transactional
+    public RecurringSlotReport createRecurringTimeSlots(RecurringTimeSlotRequest request, User admin) {
+        return createFromCandidates(RecurringSlotPlanner.expand(request), request.getDescription(), admin).report();
+    }
 
-            // Verifica se não é no passado
-            if (weeklyStartTime.isBefore(LocalDateTime.now())) {
-                continue;
-            }
+    // Uma consulta para os horários existentes no período inteiro e um único insertMany para os aceitos
+    private BulkCreation createFromCandidates(List<RecurringSlotPlanner.Candidate> candidates,
+                                              String description, User admin) {
+        LocalDateTime now = LocalDateTime.now();
+        IntervalSet occupied = new IntervalSet();
+        List<RecurringSlotPlanner.Candidate> future = candidates.stream()
+                .filter(candidate -> !candidate.start().isBefore(now))
+                .toList();
+        if (!future.isEmpty()) {
+            LocalDateTime rangeStart = future.stream().map(RecurringSlotPlanner.Candidate::start)
+                    .min(LocalDateTime::compareTo).get();
+            LocalDateTime rangeEnd = future.stream().map(RecurringSlotPlanner.Candidate::end)
+                    .max(LocalDateTime::compareTo).get();
+            timeSlotRepository.findOverlapping(rangeStart, rangeEnd)
+                    .forEach(slot -> occupied.put(slot.getId(), slot.getStartTime(), slot.getEndTime()));
+        }
 
-            // Verifica conflitos para cada semana
-            List<TimeSlot> conflictingSlots = timeSlotRepository.findByStartTimeBetweenOrEndTimeBetween(
-                    weeklyStartTime, weeklyEndTime,
-                    weeklyStartTime, weeklyEndTime
-            );
+        List<RecurringSlotReport.Outcome> outcomes = RecurringSlotPlanner.plan(candidates, occupied, now);
 
-            if (conflictingSlots.isEmpty()) {
-                TimeSlot timeSlot = new TimeSlot(weeklyStartTime, weeklyEndTime, admin);
-                timeSlot.setDescription(request.getDescription() + " (Recorrente)");
-                createdSlots.add(timeSlotRepository.save(timeSlot));
+        List<TimeSlot> toInsert = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (outcomes.get(i) == RecurringSlotReport.Outcome.ACCEPTED) {
+                TimeSlot timeSlot = new TimeSlot(candidates.get(i).start(), candidates.get(i).end(), admin);
+                timeSlot.setDescription(description + " (Recorrente)");
+                toInsert.add(timeSlot);
             }
         }
+        List<TimeSlot> created = toInsert.isEmpty() ? List.of() : timeSlotRepository.insert(toInsert);
+        created.forEach(slot -> eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.CREATED, slot)));
+
+        List<RecurringSlotReport.Entry> entries = new ArrayList<>(candidates.size());
+        Iterator<TimeSlot> createdSlots = created.iterator();
+        for (int i = 0; i < candidates.size(); i++) {
+            RecurringSlotReport.Outcome outcome = outcomes.get(i);
+            String slotId = outcome == RecurringSlotReport.Outcome.ACCEPTED ? createdSlots.next().getId() : null;
+            entries.add(new RecurringSlotReport.Entry(
+                    candidates.get(i).start(), candidates.get(i).end(), outcome, slotId));
+        }
+        return new BulkCreation(created, new RecurringSlotReport(entries));
+    }
 
-        return createdSlots;
+    private record BulkCreation(List<TimeSlot> created, RecurringSlotReport report) {
     }
 
     @Transactional
@@ -121,13 +220,7 @@ public class TimeSlotService {
         }
 
         // Verifica conflitos (excluindo o próprio horário)
-        List<TimeSlot> conflictingSlots = timeSlotRepository.findByStartTimeBetweenOrEndTimeBetweenAndIdNot(
-                request.getStartTime(), request.getEndTime(),
-                request.getStartTime(), request.getEndTime(),
-                id
-        );
-
-        if (!conflictingSlots.isEmpty()) {
+        if (intervalIndex.hasOverlap(request.getStartTime(), request.getEndTime(), id)) {
             throw new RuntimeException("Já existe um horário cadastrado neste período");
         }
 
@@ -136,7 +229,9 @@ public class TimeSlotService {
         timeSlot.setDescription(request.getDescription());
         timeSlot.setUpdatedAt(LocalDateTime.now());
 
-        return timeSlotRepository.save(timeSlot);
+        TimeSlot saved = timeSlotRepository.save(timeSlot);
+        eventPublisher.publishEvent(TimeSlotChangedEvent.of(ChangeType.UPDATED, saved));
+        return saved;
     }
 
     @Transactional
@@ -154,13 +249,61 @@ public class TimeSlotService {
         }
 
         timeSlotRepository.delete(timeSlot);
+        eventPublisher.publishEvent(TimeSlotChangedEvent.deleted(id));
     }
 
-    @Transactional
-    public void deleteExpiredEmptyTimeSlots() {
+    // Jobs de manutenção: disparam em todas as instâncias, mas só a dona do lease executa
+    @Scheduled(fixedDelayString = "${jobs.expired-slot-cleanup.interval:3600000}",
+            initialDelayString = "${jobs.expired-slot-cleanup.interval:3600000}")
+    public void scheduledExpiredSlotCleanup() {
+        jobRunner.runExclusive("expired-slot-cleanup", Duration.ofMillis(expiredSlotCleanupInterval),
+                lease -> deleteExpiredEmptyTimeSlots(() -> jobRunner.renew(lease)));
+    }
+
+    public int deleteExpiredEmptyTimeSlots() {
+        return deleteExpiredEmptyTimeSlots(() -> { });
+    }
+
+    // Remove horários livres já encerrados em lotes de cleanupBatchSize, cada um com um deleteMany curto,
+    // com pausa entre lotes para não segurar o banco. O que passar de cleanupMaxBatches fica para a próxima execução.
+    // betweenBatches é chamado antes de cada novo lote (o job renova o lease ali). Retorna o total removido.
+    // Sem @Transactional de propósito: cada lote é atômico sozinho e uma transação única ficaria aberta
+    // durante todos os lotes e pausas.
+    public int deleteExpiredEmptyTimeSlots(Runnable betweenBatches) {
         LocalDateTime now = LocalDateTime.now();
-        List<TimeSlot> expiredSlots = timeSlotRepository.findByIsAvailableTrueAndEndTimeBefore(now);
-        timeSlotRepository.deleteAll(expiredSlots);
+        int removed = 0;
+        int batches = 0;
+        while (batches < cleanupMaxBatches) {
+            if (batches > 0) {
+                betweenBatches.run();
+                pause(cleanupBatchPauseMillis);
+            }
+            List<String> deleted = timeSlotRepository.deleteExpiredAvailable(now, cleanupBatchSize);
+            batches++;
+            removed += deleted.size();
+            deleted.forEach(id -> eventPublisher.publishEvent(TimeSlotChangedEvent.deleted(id)));
+            if (deleted.size() < cleanupBatchSize) {
+                break;
+            }
+        }
+
+        DistributionSummary.builder("timeslots.cleanup.deleted")
+                .description("Horários expirados removidos por execução da limpeza")
+                .register(meterRegistry)
+                .record(removed);
+        log.info("Limpeza de horários expirados: {} removidos em {} lote(s)", removed, batches);
+        return removed;
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public Optional<TimeSlot> getTimeSlotById(String id) {
@@ -168,23 +311,6 @@ public class TimeSlotService {
     }
 
     public List<TimeSlot> getTimeSlotsByAdmin(String adminId) {
-        return timeSlotRepository.findByCreatedByDiscordIdOrderByStartTime(adminId);
-    }
-
-    @Transactional
-    public void fixInconsistentTimeSlots() {
-        List<TimeSlot> allSlots = timeSlotRepository.findAll();
-        for (TimeSlot slot : allSlots) {
-            if (slot.getAppointment() == null && !slot.isAvailable()) {
-                slot.setAvailable(true);
-                slot.setUpdatedAt(LocalDateTime.now());
-                timeSlotRepository.save(slot);
-            }
-            if (slot.getAppointment() != null && slot.isAvailable()) {
-                slot.setAvailable(false);
-                slot.setUpdatedAt(LocalDateTime.now());
-                timeSlotRepository.save(slot);
-            }
-        }
+        return timeSlotRepository.findByCreatedBySummaryDiscordIdOrderByStartTime(adminId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.model.User;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache limitado de tokens JWT já validados -> usuário, para evitar verificar a assinatura
+// e consultar o MongoDB a cada requisição da mesma sessão. Guarda uma cópia do usuário e entrega outra
+// a cada leitura: requisições simultâneas da mesma sessão não compartilham (nem alteram) a mesma instância
+@Component
+public class TokenCache {
+
+    @Value("${auth.token-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${auth.token-cache.ttl:300000}")
+    private long ttlMillis;
+
+    private final Map<String, CachedToken> entries = new ConcurrentHashMap<>();
+
+    public Optional<User> get(String token) {
+        CachedToken cached = entries.get(token);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            entries.remove(token, cached);
+            return Optional.empty();
+        }
+        return Optional.of(copyOf(cached.user()));
+    }
+
+    public void put(String token, String discordId, Date tokenExpiration, User user) {
+        long now = System.currentTimeMillis();
+        long validUntil = Math.min(now + ttlMillis, tokenExpiration.getTime());
+        if (validUntil <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(token, new CachedToken(discordId, tokenExpiration, validUntil, copyOf(user)));
+    }
+
+    // Chamado quando o usuário é alterado (login, refresh de permissões)
+    public void invalidateUser(String discordId) {
+        entries.values().removeIf(cached -> cached.discordId().equals(discordId));
+    }
+
+    // Usuário alterado por qualquer instância (change stream): descarta os tokens dele
+    @EventListener
+    public void onUserChanged(MongoChangeEvent<User> event) {
+        if (event.getOperation() == MongoChangeEvent.Operation.INVALIDATE) {
+            clear();
+        } else if (event.getDocumentId() != null) {
+            entries.values().removeIf(cached -> event.getDocumentId().equals(cached.user().getId()));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token-cache.ttl:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(cached -> cached.isExpired(now));
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(cached -> cached.isExpired(now));
+        // Ainda cheio: descarta as entradas que expirariam primeiro
+        int excess = entries.size() - maxSize + 1;
+        if (excess > 0) {
+            entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().validUntil()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User(user.getDiscordId(), user.getUsername(), user.getDiscriminator());
+        copy.setId(user.getId());
+        copy.setAvatar(user.getAvatar());
+        copy.setEmail(user.getEmail());
+        copy.setRoles(user.getRoles() != null ? new ArrayList<>(user.getRoles()) : null);
+        copy.setAdmin(user.isAdmin());
+        copy.setActive(user.isActive());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    private record CachedToken(String discordId, Date tokenExpiration, long validUntil, User user) {
+        boolean isExpired(long now) {
+            return now >= validUntil;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.wowconsulting.util;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// ETags fortes das listas versionadas. Uma lista que muda com o tempo (horários que começam e somem)
+// leva o instante de validade no próprio ETag: "<chave>~<epochSecond>"; depois dele o 304 deixa de valer.
+public final class EntityTags {
+
+    private static final char VALID_UNTIL_SEPARATOR = '~';
+
+    private EntityTags() {
+    }
+
+    public static String of(String key) {
+        return "\"" + key + "\"";
+    }
+
+    public static String of(String key, Instant validUntil) {
+        return validUntil == null ? of(key) : "\"" + key + VALID_UNTIL_SEPARATOR + validUntil.getEpochSecond() + "\"";
+    }
+
+    // ETag de If-None-Match (forte, ou "*") emitido para esta chave e ainda válido em now; vai no 304
+    public static Optional<String> findMatch(String ifNoneMatch, String key, Instant now) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return Optional.empty();
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return Optional.of(of(key));
+            }
+            if (tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+                continue; // ETags fracos (W/) nunca foram emitidos aqui
+            }
+            String value = tag.substring(1, tag.length() - 1);
+            if (value.equals(key)) {
+                return Optional.of(tag);
+            }
+            if (value.length() > key.length() + 1 && value.startsWith(key)
+                    && value.charAt(key.length()) == VALID_UNTIL_SEPARATOR
+                    && stillValid(value.substring(key.length() + 1), now)) {
+                return Optional.of(tag);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean stillValid(String epochSecond, Instant now) {
+        try {
+            return now.getEpochSecond() < Long.parseLong(epochSecond);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.wowconsulting.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Conjunto de intervalos semiabertos [start, end) ordenados pelo início.
+// Guarda a maior duração entre os intervalos presentes: um intervalo que sobrepõe [start, end) precisa começar
+// depois de start - maiorDuração, então a busca percorre só essa faixa do TreeMap (O(log n + k)).
+// As durações ficam em um multiconjunto para que remover o intervalo mais longo reduza a faixa.
+// Não é thread-safe.
+public class IntervalSet {
+
+    private final TreeMap<Key, LocalDateTime> endsByStart = new TreeMap<>();
+    private final Map<String, Key> keysById = new HashMap<>();
+    private final TreeMap<Duration, Integer> durationCounts = new TreeMap<>();
+
+    public void put(String id, LocalDateTime start, LocalDateTime end) {
+        remove(id);
+        Key key = new Key(start, id);
+        endsByStart.put(key, end);
+        keysById.put(id, key);
+        durationCounts.merge(Duration.between(start, end), 1, Integer::sum);
+    }
+
+    public void remove(String id) {
+        Key key = keysById.remove(id);
+        if (key != null) {
+            LocalDateTime end = endsByStart.remove(key);
+            durationCounts.computeIfPresent(Duration.between(key.start(), end),
+                    (duration, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, String excludeId) {
+        for (Map.Entry<Key, LocalDateTime> entry : candidates(start, end).entrySet()) {
+            if (entry.getValue().isAfter(start) && !entry.getKey().id().equals(excludeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<Key, LocalDateTime> entry : candidates(start, end).entrySet()) {
+            if (entry.getValue().isAfter(start)) {
+                ids.add(entry.getKey().id());
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return endsByStart.size();
+    }
+
+    Duration maxDuration() {
+        return durationCounts.isEmpty() ? Duration.ZERO : durationCounts.lastKey();
+    }
+
+    // Intervalos com start em [start - maiorDuração, end)
+    private Map<Key, LocalDateTime> candidates(LocalDateTime start, LocalDateTime end) {
+        Duration maxDuration = maxDuration();
+        if (!end.isAfter(start.minus(maxDuration))) {
+            return Map.of();
+        }
+        return endsByStart.subMap(new Key(start.minus(maxDuration), ""), true, new Key(end, ""), false);
+    }
+
+    private record Key(LocalDateTime start, String id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byTime = start.compareTo(other.start);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+}
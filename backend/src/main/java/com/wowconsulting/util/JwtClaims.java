@@ -0,0 +1,11 @@
+package com.wowconsulting.util;
+
+import java.util.Date;
+
+// Claims relevantes de um token já verificado
+public record JwtClaims(String subject, Date expiration, Date issuedAt) {
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
@@ -1,13 +1,15 @@
 package com.wowconsulting.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.function.Function;
@@ -21,25 +23,39 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Chave e parser são imutáveis e thread-safe: criados uma única vez
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     public String generateToken(String discordId) {
         return Jwts.builder()
-                .setSubject(discordId)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .subject(discordId)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expiration))
+                .signWith(signingKey, Jwts.SIG.HS512)
                 .compact();
     }
 
+    // Verifica a assinatura e extrai as claims em uma única passada
+    public JwtClaims parse(String token) {
+        Claims claims = getAllClaimsFromToken(token);
+        return new JwtClaims(claims.getSubject(), claims.getExpiration(), claims.getIssuedAt());
+    }
+
     public String getDiscordIdFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return parse(token).subject();
     }
 
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        return parse(token).expiration();
     }
 
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
@@ -48,20 +64,15 @@ public class JwtUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return parse(token).isExpired();
     }
 
     public Boolean validateToken(String token, String discordId) {
-        final String tokenDiscordId = getDiscordIdFromToken(token);
-        return (tokenDiscordId.equals(discordId) && !isTokenExpired(token));
+        final JwtClaims claims = parse(token);
+        return (claims.subject().equals(discordId) && !claims.isExpired());
     }
-}
\ No newline at end of file
+}
@@ -1,26 +1,37 @@
 package com.wowconsulting.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wowconsulting.dto.AppointmentListItem;
+import com.wowconsulting.dto.PageResponse;
 import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.UserSummary;
 import com.wowconsulting.service.AppointmentService;
 import com.wowconsulting.service.AuthService;
+import com.wowconsulting.service.CollectionVersions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.Mockito.*;
 
 @WebMvcTest(AppointmentController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import({NdjsonWriter.class, CollectionVersions.class})
 class AppointmentControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
@@ -31,6 +42,9 @@ class AppointmentControllerIntegrationTest {
     @MockBean
     private AuthService authService;
 
+    @Autowired
+    private CollectionVersions collectionVersions;
+
     @Test
     void testGetAllAppointments() throws Exception {
         com.wowconsulting.model.User adminUser = new com.wowconsulting.model.User();
@@ -43,4 +57,132 @@ class AppointmentControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
+
+    @Test
+    void testGetAppointmentsPage() throws Exception {
+        com.wowconsulting.model.User adminUser = new com.wowconsulting.model.User();
+        adminUser.setAdmin(true);
+        when(authService.validateToken(anyString())).thenReturn(java.util.Optional.of(adminUser));
+        when(appointmentService.getAppointmentsPage("abc", 2))
+                .thenReturn(new PageResponse<>(List.of(appointment("1")), "next"));
+
+        mockMvc.perform(get("/appointments")
+                .param("limit", "2")
+                .param("cursor", "abc")
+                .header("Authorization", "Bearer testtoken"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[0].id").value("1"))
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+        verify(appointmentService, never()).getAllAppointments();
+    }
+
+    @Test
+    void testStreamAppointmentsAsNdjson() throws Exception {
+        com.wowconsulting.model.User adminUser = new com.wowconsulting.model.User();
+        adminUser.setAdmin(true);
+        when(authService.validateToken(anyString())).thenReturn(java.util.Optional.of(adminUser));
+        when(appointmentService.streamAllAppointments()).thenReturn(Stream.of(appointment("1"), appointment("2")));
+
+        MvcResult result = mockMvc.perform(get("/appointments")
+                .param("format", "ndjson")
+                .header("Authorization", "Bearer testtoken"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        org.junit.jupiter.api.Assertions.assertEquals(2, lines.length);
+        org.junit.jupiter.api.Assertions.assertTrue(lines[1].contains("\"id\":\"2\""));
+    }
+
+    @Test
+    void testGetMyAppointmentsSummaryView() throws Exception {
+        com.wowconsulting.model.User user = new com.wowconsulting.model.User();
+        user.setDiscordId("discord-1");
+        when(authService.validateToken(anyString())).thenReturn(java.util.Optional.of(user));
+        when(appointmentService.getUserAppointmentItems("discord-1")).thenReturn(List.of(new AppointmentListItem(
+                "1", LocalDateTime.of(2030, 1, 10, 20, 0), Appointment.AppointmentStatus.SCHEDULED,
+                "Mage", "Frost", new UserSummary("u1", "discord-1", "user", null))));
+
+        mockMvc.perform(get("/appointments/my")
+                .param("view", "summary")
+                .header("Authorization", "Bearer testtoken"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].user.discordId").value("discord-1"))
+                .andExpect(jsonPath("$.data[0].characterClass").value("Mage"))
+                .andExpect(jsonPath("$.data[0].currentContent").doesNotExist());
+        verify(appointmentService, never()).getUserAppointments(anyString());
+    }
+
+    @Test
+    void testGetMyAppointmentsAnswersNotModifiedUntilTheUserChanges() throws Exception {
+        com.wowconsulting.model.User user = new com.wowconsulting.model.User();
+        user.setDiscordId("discord-1");
+        when(authService.validateToken(anyString())).thenReturn(java.util.Optional.of(user));
+        when(appointmentService.getUserAppointments("discord-1")).thenReturn(List.of(appointment("1")));
+
+        String etag = mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer testtoken"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+        // Sem change streams, escritas de outras instâncias não chegam aqui: o ETag tem validade limitada
+        org.junit.jupiter.api.Assertions.assertTrue(etag.contains("~"));
+
+        mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer testtoken")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(appointmentService, times(1)).getUserAppointments("discord-1");
+
+        // Alteração de outro usuário não invalida; a do próprio usuário sim
+        collectionVersions.appointmentsChanged("discord-2");
+        mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer testtoken")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        collectionVersions.appointmentsChanged("discord-1");
+        mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer testtoken")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("1"));
+    }
+
+    @Test
+    void testGetMyAppointmentsDoesNotMatchAnotherUsersETag() throws Exception {
+        com.wowconsulting.model.User first = new com.wowconsulting.model.User();
+        first.setDiscordId("discord-10");
+        com.wowconsulting.model.User second = new com.wowconsulting.model.User();
+        second.setDiscordId("discord-20");
+        when(authService.validateToken("token-1")).thenReturn(java.util.Optional.of(first));
+        when(authService.validateToken("token-2")).thenReturn(java.util.Optional.of(second));
+        when(appointmentService.getUserAppointments("discord-10")).thenReturn(List.of(appointment("1")));
+        when(appointmentService.getUserAppointments("discord-20")).thenReturn(List.of(appointment("2")));
+
+        String etag = mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer token-1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Usuários sem nenhuma alteração neste contexto: a mesma versão para os dois,
+        // mas o ETag do primeiro não vale para o segundo
+        mockMvc.perform(get("/appointments/my")
+                .header("Authorization", "Bearer token-2")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("2"));
+    }
+
+    private Appointment appointment(String id) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setScheduledTime(LocalDateTime.of(2030, 1, 10, 20, 0));
+        return appointment;
+    }
 }
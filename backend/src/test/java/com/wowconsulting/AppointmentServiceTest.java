@@ -1,13 +1,23 @@
 package com.wowconsulting.service;
 
+import com.wowconsulting.dto.AppointmentRequest;
 import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
 import com.wowconsulting.repository.AppointmentRepository;
+import com.wowconsulting.repository.TimeSlotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +27,21 @@ class AppointmentServiceTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private NotificationOutboxService notificationOutbox;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CollectionVersions collectionVersions = new CollectionVersions();
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -35,4 +60,72 @@ class AppointmentServiceTest {
         assertTrue(result.isPresent());
         assertEquals("abc123", result.get().getId());
     }
+
+    @Test
+    void testCreateAppointmentSlotAlreadyTaken() {
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Optional.empty());
+        when(timeSlotRepository.existsById("slot1")).thenReturn(true);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> appointmentService.createAppointment(request("slot1"), new User("123", "user", "0001")));
+        assertEquals("Horário não está mais disponível", ex.getMessage());
+        verify(appointmentRepository, never()).insert(any(Appointment.class));
+        assertEquals(1, meterRegistry.get("booking.appointments.create").tag("outcome", "slot-taken").timer().count());
+        verify(collectionVersions, never()).appointmentsChanged(any());
+    }
+
+    @Test
+    void testCreateAppointmentSlotNotFound() {
+        when(timeSlotRepository.claimSlot(eq("missing"), any(Appointment.class))).thenReturn(Optional.empty());
+        when(timeSlotRepository.existsById("missing")).thenReturn(false);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> appointmentService.createAppointment(request("missing"), new User("123", "user", "0001")));
+        assertEquals("Horário não encontrado", ex.getMessage());
+        assertEquals(1, meterRegistry.get("booking.appointments.create").tag("outcome", "not-found").timer().count());
+    }
+
+    @Test
+    void testCreateAppointmentReleasesSlotWhenInsertFails() {
+        TimeSlot claimed = new TimeSlot(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(1), null);
+        claimed.setId("slot1");
+        claimed.setAvailable(false);
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Optional.of(claimed));
+        when(appointmentRepository.insert(any(Appointment.class))).thenThrow(new RuntimeException("falha no banco"));
+
+        assertThrows(RuntimeException.class,
+                () -> appointmentService.createAppointment(request("slot1"), new User("123", "user", "0001")));
+        verify(timeSlotRepository).releaseSlot(eq("slot1"), anyString());
+        verify(notificationOutbox, never()).enqueue(any(Notification[].class));
+        assertEquals(1, meterRegistry.get("booking.appointments.create").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testCreateAppointmentSucceedsWhenNotificationEnqueueFails() {
+        TimeSlot claimed = new TimeSlot(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(1), null);
+        claimed.setId("slot1");
+        claimed.setAvailable(false);
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Optional.of(claimed));
+        when(appointmentRepository.insert(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new RuntimeException("outbox indisponível")).when(notificationOutbox).enqueue(any(Notification[].class));
+
+        // O agendamento já foi gravado: a falha da notificação não desfaz a reserva nem vira erro para o cliente
+        Appointment created = appointmentService.createAppointment(request("slot1"), new User("123", "user", "0001"));
+        assertNotNull(created);
+        verify(timeSlotRepository, never()).releaseSlot(anyString(), anyString());
+        assertEquals(1, meterRegistry.get("booking.appointments.create").tag("outcome", "success").timer().count());
+    }
+
+    private AppointmentRequest request(String timeSlotId) {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setTimeSlotId(timeSlotId);
+        request.setBnetId("Player#1234");
+        request.setDiscordTag("player");
+        request.setCharacterClass("Mage");
+        request.setSpecialization("Frost");
+        request.setKnowledgeLevel("Intermediário");
+        request.setCurrentContent("Mythic+");
+        request.setExpectations("Melhorar rotação");
+        return request;
+    }
 }
@@ -0,0 +1,117 @@
+package com.wowconsulting.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Teste de carga em malha fechada: N clientes concorrentes chamam a listagem de horários livres
+// pelo caminho MVC bloqueante e depois pelo reativo, imprimindo vazão, p50 e p99 de cada um.
+// Requer a aplicação rodando com o perfil "reactive" e um token válido:
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.wowconsulting.controller.AvailabilityLoadHarness \
+//     -Dload.token=<jwt> [-Dload.base-url=http://localhost:8080/api] [-Dload.concurrency=200] [-Dload.seconds=30]
+public class AvailabilityLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.base-url", "http://localhost:8080/api");
+        String token = System.getProperty("load.token");
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        int seconds = Integer.getInteger("load.seconds", 30);
+        if (token == null) {
+            throw new IllegalArgumentException("Informe o token com -Dload.token=<jwt>");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 10)))
+                .build();
+
+        for (String path : List.of("/timeslots/available", "/reactive/timeslots/available")) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path + "?view=summary"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            // Aquecimento curto para JIT e pools de conexão
+            run(client, request, concurrency, Math.min(5, seconds));
+            Result result = run(client, request, concurrency, seconds);
+            System.out.printf("%-32s %8.1f req/s  p50=%6.1f ms  p99=%6.1f ms  erros=%d%n",
+                    path, result.throughput(), result.percentileMillis(50), result.percentileMillis(99), result.errors());
+        }
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                Worker worker = new Worker();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            worker.errors++;
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        worker.errors++;
+                        continue;
+                    }
+                    worker.record(System.nanoTime() - start);
+                }
+                return worker;
+            }));
+        }
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+        workers.shutdown();
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, seconds);
+    }
+
+    private static class Worker {
+        long[] latencies = new long[1024];
+        int count;
+        long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long errors, int seconds) {
+        double throughput() {
+            return (double) sortedLatencies.length / seconds;
+        }
+
+        double percentileMillis(int percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
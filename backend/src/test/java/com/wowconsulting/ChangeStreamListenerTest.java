@@ -0,0 +1,45 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.MongoChangeEvent.Operation;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeStreamListenerTest {
+
+    @Test
+    void testExtractsDocumentIds() {
+        ObjectId objectId = new ObjectId();
+        assertEquals(objectId.toHexString(), ChangeStreamListener.idOf(new BsonDocument("_id", new BsonObjectId(objectId))));
+        assertEquals("slot-1", ChangeStreamListener.idOf(new BsonDocument("_id", new BsonString("slot-1"))));
+        assertNull(ChangeStreamListener.idOf(null));
+    }
+
+    // Os eventos são entregues apenas aos listeners do tipo de documento correspondente
+    @Test
+    void testRoutesEventsByDocumentType() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TokenCache.class)) {
+            TokenCache tokenCache = context.getBean(TokenCache.class);
+            User user = new User("123", "user", "0001");
+            user.setId("u1");
+            tokenCache.put("token", "123", new Date(System.currentTimeMillis() + 60_000), user);
+
+            context.publishEvent(new MongoChangeEvent<>(TimeSlot.class, Operation.DELETE, "u1", null, Instant.now()));
+            assertEquals(1, tokenCache.size());
+
+            context.publishEvent(new MongoChangeEvent<>(User.class, Operation.UPSERT, "u1", user, Instant.now()));
+            assertEquals(0, tokenCache.size());
+        }
+    }
+}
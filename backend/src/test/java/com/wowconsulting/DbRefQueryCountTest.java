@@ -0,0 +1,147 @@
+package com.wowconsulting.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.DBRef;
+import com.wowconsulting.dto.AppointmentListItem;
+import com.wowconsulting.dto.TimeSlotListItem;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.TimeSlot;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Conta quantas idas ao MongoDB a resolução de @DBRef faria ao listar N documentos.
+// Com @DBRef eager seriam N consultas em users (e 2N para horários com agendamento); com o resumo embutido, zero.
+class DbRefQueryCountTest {
+
+    private static final int PAGE = 500;
+
+    private MongoDatabaseFactory databaseFactory;
+    private MappingMongoConverter converter;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @BeforeEach
+    void setUp() {
+        // Qualquer fetch de DBRef passa pela fábrica de banco; o mock permite contar essas chamadas
+        databaseFactory = mock(MongoDatabaseFactory.class);
+        when(databaseFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(new DefaultDbRefResolver(databaseFactory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void testListingAppointmentsResolvesNoUserReferences() throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            appointments.add(converter.read(Appointment.class, appointmentDocument(i)));
+        }
+        String json = objectMapper.writeValueAsString(appointments);
+
+        assertNoDbRefFetch();
+        JsonNode first = objectMapper.readTree(json).get(0);
+        assertEquals("discord-0", first.get("user").get("discordId").asText());
+        assertEquals("user-0", first.get("user").get("username").asText());
+    }
+
+    @Test
+    void testListingTimeSlotsResolvesNoReferences() throws Exception {
+        List<TimeSlot> slots = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            slots.add(converter.read(TimeSlot.class, timeSlotDocument(i)));
+        }
+        String json = objectMapper.writeValueAsString(slots);
+
+        assertNoDbRefFetch();
+        JsonNode first = objectMapper.readTree(json).get(0);
+        assertEquals("admin", first.get("createdBy").get("username").asText());
+        assertEquals("user-0", first.get("appointment").get("user").get("username").asText());
+        assertNotNull(slots.get(0).getAppointment());
+    }
+
+    @Test
+    void testSavingLoadedSlotKeepsReferenceWithoutResolvingIt() {
+        TimeSlot slot = converter.read(TimeSlot.class, timeSlotDocument(0));
+
+        Document written = new Document();
+        converter.write(slot, written);
+
+        assertNoDbRefFetch();
+        assertInstanceOf(DBRef.class, written.get("appointment"));
+        assertInstanceOf(DBRef.class, written.get("createdBy"));
+        // O índice appointmentSummary_user depende do id do resumo ser gravado como _id
+        Document summaryUser = written.get("appointmentSummary", Document.class).get("user", Document.class);
+        assertNotNull(summaryUser.get("_id"));
+    }
+
+    @Test
+    void testListItemProjectionsReadFromStoredFieldNames() {
+        AppointmentListItem appointment = converter.read(AppointmentListItem.class, appointmentDocument(0));
+        TimeSlotListItem slot = converter.read(TimeSlotListItem.class, timeSlotDocument(0));
+
+        assertNoDbRefFetch();
+        assertEquals("discord-0", appointment.userSummary().discordId());
+        assertEquals(Appointment.AppointmentStatus.SCHEDULED, appointment.status());
+        assertFalse(slot.isAvailable());
+        assertEquals(LocalDateTime.of(2030, 1, 10, 20, 0), slot.startTime());
+    }
+
+    private void assertNoDbRefFetch() {
+        verify(databaseFactory, never()).getMongoDatabase();
+        verify(databaseFactory, never()).getMongoDatabase(anyString());
+    }
+
+    private Document appointmentDocument(int i) {
+        ObjectId userId = new ObjectId();
+        return new Document("_id", new ObjectId())
+                .append("user", new DBRef("users", userId))
+                .append("userSummary", userSummary(userId, "discord-" + i, "user-" + i))
+                .append("scheduledTime", LocalDateTime.of(2030, 1, 10, 20, 0).plusHours(i))
+                .append("characterClass", "Mage")
+                .append("specialization", "Frost")
+                .append("status", "SCHEDULED");
+    }
+
+    private Document timeSlotDocument(int i) {
+        ObjectId adminId = new ObjectId();
+        ObjectId userId = new ObjectId();
+        ObjectId appointmentId = new ObjectId();
+        return new Document("_id", new ObjectId())
+                .append("startTime", LocalDateTime.of(2030, 1, 10, 20, 0).plusHours(i))
+                .append("endTime", LocalDateTime.of(2030, 1, 10, 21, 0).plusHours(i))
+                .append("isAvailable", false)
+                .append("createdBy", new DBRef("users", adminId))
+                .append("createdBySummary", userSummary(adminId, "discord-admin", "admin"))
+                .append("appointment", new DBRef("appointments", appointmentId))
+                .append("appointmentSummary", new Document("_id", appointmentId)
+                        .append("user", userSummary(userId, "discord-" + i, "user-" + i))
+                        .append("characterClass", "Mage")
+                        .append("specialization", "Frost"));
+    }
+
+    private Document userSummary(ObjectId id, String discordId, String username) {
+        return new Document("_id", id).append("discordId", discordId).append("username", username);
+    }
+}
@@ -0,0 +1,43 @@
+package com.wowconsulting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordExecutorConfigTest {
+
+    @Test
+    void testSaturatedPoolRejectsInsteadOfRunningOnCaller() throws Exception {
+        ThreadPoolExecutor executor = DiscordExecutorConfig.boundedExecutor(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Uma tarefa ocupando a única thread e outra ocupando a única vaga da fila
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> awaitQuietly(release));
+
+            Thread caller = Thread.currentThread();
+            AtomicBoolean ranOnCaller = new AtomicBoolean(false);
+            assertThrows(RejectedExecutionException.class,
+                    () -> executor.execute(() -> ranOnCaller.set(Thread.currentThread() == caller)));
+            assertFalse(ranOnCaller.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.wowconsulting.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordOAuthClientTest {
+
+    private HttpServer discord;
+    private SimpleMeterRegistry meterRegistry;
+    private DiscordOAuthClient client;
+    private final AtomicReference<String> tokenForm = new AtomicReference<>();
+    private final AtomicReference<String> userAuthorization = new AtomicReference<>();
+
+    // Discord simulado: /oauth2/token devolve um access token e /users/@me o usuário
+    @BeforeEach
+    void setUp() throws IOException {
+        discord = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        discord.createContext("/api/oauth2/token", exchange -> {
+            tokenForm.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            if (tokenForm.get().contains("code=invalid")) {
+                respond(exchange, 400, "{\"error\":\"invalid_grant\"}");
+            } else {
+                respond(exchange, 200, "{\"access_token\":\"abc\",\"token_type\":\"Bearer\"}");
+            }
+        });
+        discord.createContext("/api/users/@me", exchange -> {
+            userAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, 200, "{\"id\":\"42\",\"username\":\"player\",\"discriminator\":\"0001\"}");
+        });
+        discord.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new DiscordOAuthClient();
+        ReflectionTestUtils.setField(client, "clientId", "client");
+        ReflectionTestUtils.setField(client, "clientSecret", "s3cr&t");
+        ReflectionTestUtils.setField(client, "redirectUri", "http://localhost:3000/auth/callback");
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + discord.getAddress().getPort() + "/api");
+        ReflectionTestUtils.setField(client, "connectTimeout", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(client, "requestTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(client, "discordExecutor", (Executor) Runnable::run);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        discord.stop(0);
+    }
+
+    @Test
+    void testFetchUserExchangesCodeAndRecordsLatency() {
+        JsonNode user = client.fetchUser("the code").join();
+
+        assertEquals("42", user.get("id").asText());
+        assertEquals("Bearer abc", userAuthorization.get());
+        assertTrue(tokenForm.get().contains("code=the+code"));
+        assertTrue(tokenForm.get().contains("client_secret=s3cr%26t"));
+        assertEquals(1, meterRegistry.get("discord.oauth.requests")
+                .tags("operation", "token", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("discord.oauth.requests")
+                .tags("operation", "user", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testFailsOnErrorStatusWithoutCallingUserEndpoint() {
+        CompletionException error = assertThrows(CompletionException.class, () -> client.fetchUser("invalid").join());
+
+        assertTrue(error.getCause().getMessage().contains("400"));
+        assertNull(userAuthorization.get());
+        assertEquals(1, meterRegistry.get("discord.oauth.requests")
+                .tags("operation", "token", "outcome", "error").timer().count());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,226 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.dto.MemberAccess;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.restaction.CacheRestAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DiscordServiceTest {
+
+    private static final String GUILD_ID = "g1";
+
+    @Mock
+    private Guild guild;
+
+    @Mock
+    private JDA jda;
+
+    @Mock
+    private CacheRestAction<Member> retrieveMember;
+
+    private DiscordService discordService;
+
+    // Buscas ficam paradas aqui até o teste executá-las, para controlar a ordem em relação aos eventos
+    private final Queue<Runnable> lookups = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(guild.getId()).thenReturn(GUILD_ID);
+
+        discordService = new DiscordService();
+        ReflectionTestUtils.setField(discordService, "guildId", GUILD_ID);
+        ReflectionTestUtils.setField(discordService, "requiredRoles", List.of("member-role"));
+        ReflectionTestUtils.setField(discordService, "adminRoles", List.of("admin-role"));
+        ReflectionTestUtils.setField(discordService, "memberCacheTtl", 600000L);
+        ReflectionTestUtils.setField(discordService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(discordService, "discordExecutor", (Executor) lookups::add);
+        ReflectionTestUtils.setField(discordService, "guild", guild);
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneDiscordCall() {
+        Member member = member("u1", "member-role");
+        when(guild.getMemberById("u1")).thenReturn(member);
+
+        CompletableFuture<MemberAccess> first = discordService.getMemberAccess("u1");
+        CompletableFuture<MemberAccess> second = discordService.getMemberAccess("u1");
+        runLookups();
+
+        assertSame(first, second);
+        assertTrue(first.join().hasRequiredRole());
+        verify(guild, times(1)).getMemberById("u1");
+    }
+
+    @Test
+    void testRoleEventIsNotOverwrittenByLookupStartedBeforeIt() {
+        // A busca lê o membro ainda sem o cargo, mas só termina depois do evento que o adicionou
+        Member withoutRole = member("u1");
+        when(guild.getMemberById("u1")).thenReturn(withoutRole);
+        CompletableFuture<MemberAccess> lookup = discordService.getMemberAccess("u1");
+
+        Member promoted = member("u1", "member-role");
+        discordService.memberAccessListener.onGuildMemberRoleAdd(
+                new GuildMemberRoleAddEvent(jda, 1, promoted, promoted.getRoles()));
+        runLookups();
+
+        assertFalse(lookup.join().hasRequiredRole());
+        assertTrue(discordService.getMemberAccess("u1").join().hasRequiredRole());
+        verify(guild, times(1)).getMemberById("u1");
+    }
+
+    @Test
+    void testRefreshDoesNotJoinLookupStartedBeforeIt() {
+        Member before = member("u1");
+        Member after = member("u1", "admin-role");
+        when(guild.getMemberById("u1")).thenReturn(before, after);
+        CompletableFuture<MemberAccess> stale = discordService.getMemberAccess("u1");
+
+        CompletableFuture<MemberAccess> refreshed = discordService.refreshMemberAccess("u1");
+        assertNotSame(stale, refreshed);
+        // Chamadas após o refresh aguardam a busca nova
+        assertSame(refreshed, discordService.getMemberAccess("u1"));
+
+        runLookups();
+
+        assertFalse(stale.join().isAdmin());
+        assertTrue(refreshed.join().isAdmin());
+        assertTrue(discordService.getMemberAccess("u1").join().isAdmin());
+        verify(guild, times(2)).getMemberById("u1");
+    }
+
+    @Test
+    void testLookupFinishingAfterInvalidationDoesNotRepopulateCache() {
+        Member before = member("u1", "member-role");
+        Member after = member("u1");
+        when(guild.getMemberById("u1")).thenReturn(before, after);
+        CompletableFuture<MemberAccess> lookup = discordService.getMemberAccess("u1");
+
+        discordService.invalidateMemberAccess("u1");
+        runLookups();
+        assertTrue(lookup.join().hasRequiredRole());
+
+        // A entrada invalidada não foi substituída pelo resultado anterior à invalidação
+        CompletableFuture<MemberAccess> next = discordService.getMemberAccess("u1");
+        runLookups();
+        assertFalse(next.join().hasRequiredRole());
+        verify(guild, times(2)).getMemberById("u1");
+    }
+
+    @Test
+    void testCachedAccessIsServedUntilTtlExpires() {
+        Member member = member("u1", "member-role");
+        when(guild.getMemberById("u1")).thenReturn(member);
+
+        discordService.getMemberAccess("u1");
+        runLookups();
+        assertTrue(discordService.getMemberAccess("u1").join().hasRequiredRole());
+        assertTrue(lookups.isEmpty());
+        verify(guild, times(1)).getMemberById("u1");
+
+        // Com TTL zerado a entrada já nasce expirada e a próxima chamada volta ao Discord
+        ReflectionTestUtils.setField(discordService, "memberCacheTtl", 0L);
+        discordService.invalidateMemberAccess("u1");
+        discordService.getMemberAccess("u1");
+        runLookups();
+        discordService.getMemberAccess("u1");
+        runLookups();
+        verify(guild, times(3)).getMemberById("u1");
+    }
+
+    @Test
+    void testJoinAndRemoveEventsUpdateCacheWithoutCallingDiscord() {
+        Member member = member("u1", "admin-role");
+        User user = mock(User.class);
+        when(user.getId()).thenReturn("u1");
+
+        discordService.memberAccessListener.onGuildMemberJoin(new GuildMemberJoinEvent(jda, 1, member));
+        assertTrue(discordService.getMemberAccess("u1").join().isAdmin());
+
+        discordService.memberAccessListener.onGuildMemberRemove(new GuildMemberRemoveEvent(jda, 2, guild, user, member));
+        MemberAccess removed = discordService.getMemberAccess("u1").join();
+        assertFalse(removed.inGuild());
+        assertFalse(removed.isAdmin());
+
+        assertTrue(lookups.isEmpty());
+        verify(guild, never()).getMemberById(anyString());
+    }
+
+    @Test
+    void testUnknownMemberIsCachedAsNotInGuild() {
+        ErrorResponseException unknownMember = mock(ErrorResponseException.class);
+        when(unknownMember.getErrorResponse()).thenReturn(ErrorResponse.UNKNOWN_MEMBER);
+        when(guild.retrieveMemberById("u1")).thenReturn(retrieveMember);
+        when(retrieveMember.complete()).thenThrow(unknownMember);
+
+        CompletableFuture<MemberAccess> lookup = discordService.getMemberAccess("u1");
+        runLookups();
+        assertFalse(lookup.join().inGuild());
+
+        // A resposta "não é membro" fica no cache: a segunda chamada não consulta o Discord
+        assertFalse(discordService.getMemberAccess("u1").join().inGuild());
+        assertTrue(lookups.isEmpty());
+        verify(retrieveMember, times(1)).complete();
+    }
+
+    @Test
+    void testDiscordErrorsAreNotCached() {
+        ErrorResponseException serverError = mock(ErrorResponseException.class);
+        when(serverError.getErrorResponse()).thenReturn(ErrorResponse.SERVER_ERROR);
+        when(guild.retrieveMemberById("u1")).thenReturn(retrieveMember);
+        when(retrieveMember.complete()).thenThrow(serverError);
+
+        CompletableFuture<MemberAccess> lookup = discordService.getMemberAccess("u1");
+        runLookups();
+        assertFalse(lookup.join().inGuild());
+
+        // Falha transitória não vira "não é membro" por um TTL inteiro
+        discordService.getMemberAccess("u1");
+        runLookups();
+        verify(retrieveMember, times(2)).complete();
+    }
+
+    private void runLookups() {
+        Runnable lookup;
+        while ((lookup = lookups.poll()) != null) {
+            lookup.run();
+        }
+    }
+
+    private Member member(String id, String... roleIds) {
+        Member member = mock(Member.class);
+        when(member.getId()).thenReturn(id);
+        when(member.getGuild()).thenReturn(guild);
+        List<Role> roles = Arrays.stream(roleIds).map(roleId -> {
+            Role role = mock(Role.class);
+            when(role.getId()).thenReturn(roleId);
+            return role;
+        }).toList();
+        when(member.getRoles()).thenReturn(roles);
+        return member;
+    }
+}
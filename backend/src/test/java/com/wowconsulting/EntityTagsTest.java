@@ -0,0 +1,34 @@
+package com.wowconsulting.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagsTest {
+
+    @Test
+    void testMatchesAnyStrongTagForTheKey() {
+        String etag = EntityTags.of("slots.a1.3.full.upcoming");
+        Instant now = Instant.now();
+
+        assertEquals(Optional.of(etag), EntityTags.findMatch("\"other\", " + etag, "slots.a1.3.full.upcoming", now));
+        assertTrue(EntityTags.findMatch("*", "slots.a1.3.full.upcoming", now).isPresent());
+        assertTrue(EntityTags.findMatch("W/" + etag, "slots.a1.3.full.upcoming", now).isEmpty());
+        assertTrue(EntityTags.findMatch(etag, "slots.a1.4.full.upcoming", now).isEmpty());
+        assertTrue(EntityTags.findMatch(null, "slots.a1.3.full.upcoming", now).isEmpty());
+    }
+
+    @Test
+    void testTagStopsMatchingAfterValidUntil() {
+        Instant firstSlotStart = Instant.parse("2030-01-10T20:00:00Z");
+        String etag = EntityTags.of("slots.a1.3.full.upcoming", firstSlotStart);
+
+        assertTrue(EntityTags.findMatch(etag, "slots.a1.3.full.upcoming", firstSlotStart.minusSeconds(1)).isPresent());
+        assertTrue(EntityTags.findMatch(etag, "slots.a1.3.full.upcoming", firstSlotStart).isEmpty());
+        // A chave precisa bater inteira antes da validade
+        assertTrue(EntityTags.findMatch(etag, "slots.a1.3", firstSlotStart.minusSeconds(1)).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.wowconsulting.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalSetTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2030, 1, 10, 10, 0);
+
+    @Test
+    void testDetectsContainmentAndPartialOverlap() {
+        IntervalSet intervals = new IntervalSet();
+        intervals.put("long", base, base.plusHours(4));
+        intervals.put("short", base.plusHours(6), base.plusHours(7));
+
+        // Novo horário totalmente contido em um existente (não era detectado pela consulta antiga)
+        assertTrue(intervals.overlaps(base.plusHours(1), base.plusHours(2), null));
+        // Novo horário que contém um existente
+        assertTrue(intervals.overlaps(base.plusHours(5), base.plusHours(8), null));
+        // Sobreposição parcial
+        assertTrue(intervals.overlaps(base.plusHours(3), base.plusHours(5), null));
+        assertEquals(List.of("short"), intervals.findOverlapping(base.plusHours(6).plusMinutes(30), base.plusHours(9)));
+    }
+
+    @Test
+    void testAdjacentIntervalsDoNotOverlap() {
+        IntervalSet intervals = new IntervalSet();
+        intervals.put("a", base, base.plusHours(1));
+
+        assertFalse(intervals.overlaps(base.plusHours(1), base.plusHours(2), null));
+        assertFalse(intervals.overlaps(base.minusHours(1), base, null));
+    }
+
+    @Test
+    void testExcludeAndRemove() {
+        IntervalSet intervals = new IntervalSet();
+        intervals.put("a", base, base.plusHours(1));
+
+        assertFalse(intervals.overlaps(base, base.plusHours(1), "a"));
+
+        intervals.put("a", base.plusDays(1), base.plusDays(1).plusHours(1));
+        assertFalse(intervals.overlaps(base, base.plusHours(1), null));
+
+        intervals.remove("a");
+        assertEquals(0, intervals.size());
+    }
+
+    @Test
+    void testRemovingTheLongestIntervalNarrowsTheSearch() {
+        IntervalSet intervals = new IntervalSet();
+        intervals.put("short", base, base.plusHours(1));
+        intervals.put("long", base.plusDays(1), base.plusDays(4));
+        intervals.put("long-copy", base.plusDays(5), base.plusDays(8));
+        assertEquals(Duration.ofDays(3), intervals.maxDuration());
+
+        intervals.remove("long");
+        assertEquals(Duration.ofDays(3), intervals.maxDuration());
+        // Substituir o intervalo também descarta a duração antiga
+        intervals.put("long-copy", base.plusDays(5), base.plusDays(5).plusHours(2));
+        assertEquals(Duration.ofHours(2), intervals.maxDuration());
+        assertTrue(intervals.overlaps(base.plusDays(5).plusHours(1), base.plusDays(5).plusHours(3), null));
+    }
+}
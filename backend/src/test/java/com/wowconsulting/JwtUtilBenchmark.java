@@ -0,0 +1,69 @@
+package com.wowconsulting.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Compara a validação de tokens antes (chave e parser recriados, duas passadas) e depois (parser único)
+// Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.wowconsulting.util.JwtUtilBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-key-that-is-long-enough-for-hs512-signatures-0123456789";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("253313401370050560");
+    }
+
+    @Benchmark
+    public String legacyValidate() {
+        // Fluxo anterior do AuthService: isTokenExpired + getDiscordIdFromToken, cada um recriando chave e parser
+        if (legacyClaims(token).getExpiration().before(new Date())) {
+            return null;
+        }
+        return legacyClaims(token).getSubject();
+    }
+
+    @Benchmark
+    public String singlePassParse() {
+        JwtClaims claims = jwtUtil.parse(token);
+        return claims.isExpired() ? null : claims.subject();
+    }
+
+    private Claims legacyClaims(String jwt) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(jwt)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.wowconsulting.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.wowconsulting.model.JobLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LeasedJobRunnerTest {
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private LeasedJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new LeasedJobRunner();
+        ReflectionTestUtils.setField(runner, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(runner, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(runner, "leaseTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(runner, "configuredInstanceId", "node-a");
+        runner.init();
+    }
+
+    @Test
+    void testSkipsWhenAnotherInstanceHoldsTheLease() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(JobLease.class))).thenReturn(null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(JobLease.class)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertFalse(runner.runExclusive("cleanup", Duration.ofMinutes(1), lease -> fail("não deveria executar")));
+        assertEquals(1, meterRegistry.get("jobs.runs.skipped").tag("job", "cleanup").counter().count());
+    }
+
+    @Test
+    void testTakesOverExpiredLeaseWithNextFencingToken() {
+        JobLease previous = new JobLease();
+        previous.setId("cleanup");
+        previous.setOwner("node-b");
+        previous.setFencingToken(7);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(JobLease.class))).thenReturn(null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(JobLease.class)))
+                .thenReturn(previous);
+
+        AtomicLong token = new AtomicLong();
+        assertTrue(runner.runExclusive("cleanup", Duration.ofMinutes(1), lease -> token.set(lease.fencingToken())));
+
+        assertEquals(8, token.get());
+        assertEquals(1, meterRegistry.get("jobs.lease.handover").tag("job", "cleanup").counter().count());
+        assertEquals(1, meterRegistry.get("jobs.run.duration").tags("job", "cleanup", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRenewFailsOnceTheLeaseChangedOwner() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(JobLease.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThrows(LeasedJobRunner.LeaseLostException.class,
+                () -> runner.renew(new LeasedJobRunner.Lease("cleanup", 3)));
+    }
+}
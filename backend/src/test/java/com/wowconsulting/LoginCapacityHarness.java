@@ -0,0 +1,125 @@
+package com.wowconsulting.controller;
+
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Capacidade de logins simultâneos: uma rajada de N logins, cada um fazendo as duas chamadas bloqueantes
+// do callback OAuth (token + /users/@me) contra um Discord simulado com latência fixa. Compara o pool de
+// threads de plataforma do Tomcat (200 por padrão) com uma virtual thread por requisição (Java 21).
+// Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.wowconsulting.controller.LoginCapacityHarness \
+//     [-Dlogin.burst=2000] [-Dlogin.discord-latency-ms=250] [-Dlogin.platform-threads=200]
+public class LoginCapacityHarness {
+
+    public static void main(String[] args) throws Exception {
+        int burst = Integer.getInteger("login.burst", 2000);
+        int latencyMillis = Integer.getInteger("login.discord-latency-ms", 250);
+        int platformThreads = Integer.getInteger("login.platform-threads", 200);
+
+        HttpServer discord = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        discord.setExecutor(Executors.newCachedThreadPool());
+        discord.createContext("/api/oauth2/token", exchange -> respond(exchange, latencyMillis,
+                "{\"access_token\":\"token\",\"token_type\":\"Bearer\"}"));
+        discord.createContext("/api/users/@me", exchange -> respond(exchange, latencyMillis,
+                "{\"id\":\"1\",\"username\":\"player\",\"discriminator\":\"0001\"}"));
+        discord.start();
+        String baseUrl = "http://127.0.0.1:" + discord.getAddress().getPort() + "/api";
+
+        RestTemplate restTemplate = new RestTemplate();
+        report("plataforma (" + platformThreads + " threads)", burst,
+                Executors.newFixedThreadPool(platformThreads), restTemplate, baseUrl);
+
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            report("virtual threads", burst, virtual, restTemplate, baseUrl);
+        } else {
+            System.out.println("virtual threads: indisponível em Java " + Runtime.version().feature() + " (requer 21)");
+        }
+        discord.stop(0);
+        System.exit(0);
+    }
+
+    private static void report(String label, int burst, ExecutorService executor,
+                               RestTemplate restTemplate, String baseUrl) throws Exception {
+        long started = System.nanoTime();
+        List<Future<Long>> logins = new ArrayList<>(burst);
+        for (int i = 0; i < burst; i++) {
+            long submitted = System.nanoTime();
+            logins.add(executor.submit(() -> {
+                login(restTemplate, baseUrl);
+                return System.nanoTime() - submitted;
+            }));
+        }
+        long[] latencies = new long[burst];
+        int errors = 0;
+        for (int i = 0; i < burst; i++) {
+            try {
+                latencies[i] = logins.get(i).get();
+            } catch (Exception e) {
+                latencies[i] = Long.MAX_VALUE;
+                errors++;
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Arrays.sort(latencies);
+        System.out.printf("%-28s %8.1f logins/s  p50=%7.1f ms  p99=%7.1f ms  erros=%d%n", label,
+                (burst - errors) / elapsedSeconds, millis(latencies, 50), millis(latencies, 99), errors);
+    }
+
+    // Duas chamadas bloqueantes, como o callback OAuth fazia antes do DiscordOAuthClient
+    private static void login(RestTemplate restTemplate, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        restTemplate.postForObject(baseUrl + "/oauth2/token",
+                new HttpEntity<>("grant_type=authorization_code&code=abc", headers), String.class);
+
+        HttpHeaders userHeaders = new HttpHeaders();
+        userHeaders.setBearerAuth("token");
+        restTemplate.exchange(baseUrl + "/users/@me", HttpMethod.GET, new HttpEntity<>(userHeaders), String.class);
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int latencyMillis, String body)
+            throws java.io.IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static double millis(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor só existe a partir do Java 21
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.wowconsulting.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.util.KeysetCursor;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Executa cada consulta dos repositórios contra um MongoDB real, captura o comando enviado pelo driver
+// e roda explain() sobre ele: falha se algum plano vencedor fizer COLLSCAN.
+// O MongoDB vem de mongoAvailable(); sem nenhum disponível o teste é reportado como ignorado, com o motivo.
+@EnabledIf(value = "com.wowconsulting.repository.MongoIndexCatalogExplainTest#mongoAvailable",
+        disabledReason = "Sem MongoDB (MONGODB_TEST_URI, localhost:27017 ou Docker); verificação de COLLSCAN não executada")
+@DataMongoTest(properties = "spring.data.mongodb.database=" + MongoIndexCatalogExplainTest.DATABASE)
+@Import({MongoIndexCatalog.class, MongoIndexCatalogExplainTest.CaptureConfig.class})
+class MongoIndexCatalogExplainTest {
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct",
+            "update", "delete", "findAndModify");
+    private static final Set<String> SESSION_FIELDS = Set.of("lsid", "$db", "$clusterTime", "txnNumber",
+            "$readPreference", "apiVersion", "apiStrict", "apiDeprecationErrors");
+    private static final List<BsonDocument> captured = new CopyOnWriteArrayList<>();
+
+    static final String DATABASE = "wow_consulting_index_test";
+    private static final String LOCAL_URI = "mongodb://localhost:27017/" + DATABASE;
+    private static String mongoUri;
+    private static MongoDBContainer container;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexCatalog indexCatalog;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCapture() {
+            CommandListener listener = new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (EXPLAINABLE.contains(event.getCommandName())) {
+                        captured.add(event.getCommand().clone());
+                    }
+                }
+            };
+            return builder -> builder.addCommandListener(listener);
+        }
+    }
+
+    // MONGODB_TEST_URI (CI; se estiver definido e inacessível o teste falha), um mongod em localhost:27017
+    // ou um container descartável via Testcontainers. Sem nenhum deles o teste aparece como ignorado.
+    static boolean mongoAvailable() {
+        if (mongoUri != null) {
+            return true;
+        }
+        String configured = System.getenv("MONGODB_TEST_URI");
+        if (configured != null && !configured.isBlank()) {
+            mongoUri = configured;
+        } else if (ping(LOCAL_URI)) {
+            mongoUri = LOCAL_URI;
+        } else if (DockerClientFactory.instance().isDockerAvailable()) {
+            container = new MongoDBContainer("mongo:7.0");
+            container.start();
+            mongoUri = container.getReplicaSetUrl(DATABASE);
+        }
+        return mongoUri != null;
+    }
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongoUri);
+    }
+
+    private static boolean ping(String uri) {
+        try (MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build())) {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void testNoRepositoryQueryDoesCollectionScan() {
+        mongoTemplate.getDb().drop();
+        indexCatalog.ensureIndexes();
+        LocalDateTime now = LocalDateTime.now();
+
+        User user = userRepository.save(new User("discord-1", "user", "0001"));
+        TimeSlot slot = timeSlotRepository.save(new TimeSlot(now.plusDays(1), now.plusDays(1).plusHours(1), user));
+        Appointment appointment = new Appointment();
+        appointment.setUser(user);
+        appointment.setScheduledTime(slot.getStartTime());
+        appointment = appointmentRepository.save(appointment);
+        notificationRepository.save(Notification.appointmentCreated("info"));
+        captured.clear();
+
+        timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(now);
+        timeSlotRepository.findByIsAvailableTrueAndStartTimeBetweenOrderByStartTime(now, now.plusDays(7));
+        timeSlotRepository.findAllByOrderByStartTime();
+        timeSlotRepository.findByStartTimeBetweenOrderByStartTime(now, now.plusDays(7));
+        timeSlotRepository.existsOverlapping(now, now.plusDays(2));
+        timeSlotRepository.existsOverlappingExcluding(now, now.plusDays(2), slot.getId());
+        timeSlotRepository.findOverlapping(now, now.plusDays(2));
+        timeSlotRepository.findActiveIntervals(now);
+        timeSlotRepository.deleteExpiredAvailable(now.minusYears(10), 10);
+        timeSlotRepository.findByAppointmentId(appointment.getId());
+        timeSlotRepository.findByCreatedBySummaryDiscordIdOrderByStartTime("discord-1");
+        timeSlotRepository.claimSlot(slot.getId(), appointment);
+        timeSlotRepository.releaseSlot(slot.getId(), appointment.getId());
+        timeSlotRepository.releaseSlotForAppointment(appointment.getId());
+        timeSlotRepository.fixUnavailableWithoutAppointment(true);
+        timeSlotRepository.fixAvailableWithAppointment(true);
+        try (Stream<TimeSlotRepositoryCustom.AppointmentRef> refs = timeSlotRepository.streamAppointmentRefs()) {
+            refs.forEach(ref -> { });
+        }
+        timeSlotRepository.releaseSlots(List.of(new TimeSlotRepositoryCustom.AppointmentRef(slot.getId(), appointment.getId(), slot.getUpdatedAt())));
+        timeSlotRepository.findPageOrderByStartTime(null, 10, TimeSlot.class);
+        timeSlotRepository.findPageOrderByStartTime(new KeysetCursor(slot.getStartTime(), slot.getId()), 10, TimeSlot.class);
+        try (Stream<TimeSlot> stream = timeSlotRepository.streamAllOrderByStartTime()) {
+            stream.count();
+        }
+        timeSlotRepository.refreshUserSummary(UserSummary.of(user));
+
+        appointmentRepository.findByUser_IdOrderByScheduledTimeDesc(user.getId());
+        appointmentRepository.findAllByOrderByScheduledTimeDesc();
+        appointmentRepository.findByScheduledTimeAfterOrderByScheduledTime(now);
+        appointmentRepository.findByScheduledTimeBetweenAndStatus(now, now.plusDays(7),
+                Appointment.AppointmentStatus.SCHEDULED);
+        appointmentRepository.findByStatus(Appointment.AppointmentStatus.SCHEDULED);
+        appointmentRepository.findByScheduledTimeBetween(now, now.plusDays(7));
+        appointmentRepository.countByStatus(Appointment.AppointmentStatus.SCHEDULED);
+        appointmentRepository.findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter(
+                Appointment.AppointmentStatus.SCHEDULED, now);
+        appointmentRepository.findByUpdatedAtAfter(now.minusMinutes(5));
+        appointmentRepository.findStatusesByIds(List.of(appointment.getId()));
+        appointmentRepository.markReminderSent(appointment.getId(), now);
+        appointmentRepository.findPageOrderByScheduledTimeDesc(null, 10, Appointment.class);
+        appointmentRepository.findPageOrderByScheduledTimeDesc(
+                new KeysetCursor(appointment.getScheduledTime(), appointment.getId()), 10, Appointment.class);
+        try (Stream<Appointment> stream = appointmentRepository.streamAllOrderByScheduledTimeDesc()) {
+            stream.count();
+        }
+        appointmentRepository.refreshUserSummary(UserSummary.of(user));
+
+        userRepository.findByDiscordId("discord-1");
+        userRepository.findByIsActiveTrue();
+        userRepository.findByIsAdminTrue();
+
+        notificationRepository.findByClaimTokenOrderByCreatedAt("token");
+        notificationRepository.countByStatus(Notification.Status.PENDING);
+        notificationRepository.deleteByIdAndStatus("reminder-a1", Notification.Status.PENDING);
+
+        List<BsonDocument> commands = new ArrayList<>(captured);
+        assertFalse(commands.isEmpty());
+        List<String> collectionScans = new ArrayList<>();
+        for (BsonDocument command : commands) {
+            Document explain = mongoTemplate.getDb().runCommand(new BsonDocument("explain", withoutSessionFields(command))
+                    .append("verbosity", new BsonString("queryPlanner")));
+            if (winningPlanHasCollectionScan(explain, false)) {
+                collectionScans.add(command.toJson());
+            }
+        }
+        assertTrue(collectionScans.isEmpty(), "Consultas sem índice (COLLSCAN):\n" + String.join("\n", collectionScans));
+    }
+
+    private static BsonDocument withoutSessionFields(BsonDocument command) {
+        BsonDocument cleaned = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!SESSION_FIELDS.contains(key)) {
+                cleaned.append(key, value);
+            }
+        });
+        return cleaned;
+    }
+
+    // Procura COLLSCAN apenas dentro de winningPlan (planos rejeitados não importam)
+    private static boolean winningPlanHasCollectionScan(Object node, boolean insideWinningPlan) {
+        if (node instanceof Document document) {
+            if (insideWinningPlan && "COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            for (String key : document.keySet()) {
+                boolean inside = insideWinningPlan || "winningPlan".equals(key);
+                if (winningPlanHasCollectionScan(document.get(key), inside)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                if (winningPlanHasCollectionScan(item, insideWinningPlan)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
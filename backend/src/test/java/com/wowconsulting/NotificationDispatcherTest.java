@@ -0,0 +1,73 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.Notification.Target;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    @Test
+    void testCoalescesMessagesForSameDestination() {
+        List<Notification> notifications = List.of(
+                Notification.reminder("111", "primeira"),
+                Notification.appointmentCreated("canal"),
+                Notification.reminder("111", "segunda"),
+                Notification.reminder("222", "outro usuário")
+        );
+
+        List<NotificationDispatcher.OutgoingMessage> messages = NotificationDispatcher.coalesce(notifications, 2000);
+
+        assertEquals(3, messages.size());
+        NotificationDispatcher.OutgoingMessage first = messages.get(0);
+        assertEquals(Target.DIRECT_MESSAGE, first.target());
+        assertEquals("111", first.recipientId());
+        assertEquals(2, first.notifications().size());
+        assertTrue(first.content().indexOf("primeira") < first.content().indexOf("segunda"));
+        assertEquals(Target.APPOINTMENTS_CHANNEL, messages.get(1).target());
+        assertEquals("222", messages.get(2).recipientId());
+    }
+
+    @Test
+    void testSplitsWhenMessageLimitIsReached() {
+        String longText = "x".repeat(900);
+        List<Notification> notifications = List.of(
+                new Notification(Target.GUILD_OWNER, null, longText),
+                new Notification(Target.GUILD_OWNER, null, longText),
+                new Notification(Target.GUILD_OWNER, null, longText),
+                new Notification(Target.GUILD_OWNER, null, "y".repeat(2500))
+        );
+
+        List<NotificationDispatcher.OutgoingMessage> messages = NotificationDispatcher.coalesce(notifications, 2000);
+
+        assertEquals(3, messages.size());
+        assertEquals(2, messages.get(0).notifications().size());
+        assertTrue(messages.stream().allMatch(message -> message.content().length() <= 2000));
+    }
+
+    @Test
+    void testBackoffGrowsExponentiallyUpToLimit() {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMillis", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMillis", 60000L);
+
+        assertEquals(5000, dispatcher.backoffMillis(1));
+        assertEquals(10000, dispatcher.backoffMillis(2));
+        assertEquals(40000, dispatcher.backoffMillis(4));
+        assertEquals(60000, dispatcher.backoffMillis(10));
+    }
+
+    @Test
+    void testFinishedNotificationsArePurgedAfterRetention() {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "retentionMillis", 86_400_000L);
+        LocalDateTime finishedAt = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+        assertEquals(LocalDateTime.of(2024, 1, 11, 12, 0), dispatcher.purgeAt(finishedAt));
+    }
+}
@@ -0,0 +1,106 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.dto.AppointmentRequest;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.Notification;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.model.User;
+import com.wowconsulting.repository.ReactiveAppointmentRepository;
+import com.wowconsulting.repository.ReactiveNotificationRepository;
+import com.wowconsulting.repository.ReactiveTimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveBookingServiceTest {
+    @Mock
+    private ReactiveTimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private ReactiveAppointmentRepository appointmentRepository;
+
+    @Mock
+    private ReactiveNotificationRepository notificationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CollectionVersions collectionVersions;
+
+    @InjectMocks
+    private ReactiveBookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testCreateAppointmentSlotAlreadyTaken() {
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Mono.empty());
+        when(timeSlotRepository.existsById("slot1")).thenReturn(Mono.just(true));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> bookingService.createAppointment(request("slot1"), new User("123", "user", "0001")).block());
+        assertEquals("Horário não está mais disponível", ex.getMessage());
+        verify(appointmentRepository, never()).insert(any(Appointment.class));
+    }
+
+    @Test
+    void testCreateAppointmentReleasesSlotWhenInsertFails() {
+        TimeSlot claimed = new TimeSlot(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(1), null);
+        claimed.setId("slot1");
+        claimed.setAvailable(false);
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Mono.just(claimed));
+        when(appointmentRepository.insert(any(Appointment.class))).thenReturn(Mono.error(new RuntimeException("falha no banco")));
+        when(timeSlotRepository.releaseSlot(eq("slot1"), anyString())).thenReturn(Mono.just(claimed));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> bookingService.createAppointment(request("slot1"), new User("123", "user", "0001")).block());
+        assertEquals("falha no banco", ex.getMessage());
+        verify(timeSlotRepository).releaseSlot(eq("slot1"), anyString());
+        verify(eventPublisher, times(2)).publishEvent(any(TimeSlotChangedEvent.class));
+        verify(notificationRepository, never()).insert(anyIterable());
+    }
+
+    @Test
+    void testCreateAppointmentEnqueuesNotifications() {
+        TimeSlot claimed = new TimeSlot(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(1), null);
+        claimed.setId("slot1");
+        claimed.setAvailable(false);
+        when(timeSlotRepository.claimSlot(eq("slot1"), any(Appointment.class))).thenReturn(Mono.just(claimed));
+        when(appointmentRepository.insert(any(Appointment.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(notificationRepository.insert(anyIterable())).thenReturn(Flux.<Notification>empty());
+
+        Appointment appointment = bookingService.createAppointment(request("slot1"), new User("123", "user", "0001")).block();
+
+        assertNotNull(appointment);
+        assertEquals(claimed.getStartTime(), appointment.getScheduledTime());
+        verify(notificationRepository).insert(anyIterable());
+    }
+
+    private AppointmentRequest request(String timeSlotId) {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setTimeSlotId(timeSlotId);
+        request.setBnetId("Player#1234");
+        request.setDiscordTag("player");
+        request.setCharacterClass("Mage");
+        request.setSpecialization("Frost");
+        request.setKnowledgeLevel("Intermediário");
+        request.setCurrentContent("Mythic+");
+        request.setExpectations("Melhorar rotação");
+        return request;
+    }
+}
@@ -0,0 +1,58 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.dto.RecurringSlotReport.Outcome;
+import com.wowconsulting.dto.RecurringTimeSlotRequest;
+import com.wowconsulting.util.IntervalSet;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurringSlotPlannerTest {
+
+    // 2030-01-07 é uma segunda-feira
+    private final LocalDate monday = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void testExpandsWeekdaysAndSlotsPerDay() {
+        RecurringTimeSlotRequest rule = new RecurringTimeSlotRequest();
+        rule.setStartDate(monday);
+        rule.setWeeks(2);
+        rule.setWeekdays(List.of(DayOfWeek.WEDNESDAY, DayOfWeek.MONDAY));
+        rule.setSlots(List.of(
+                new RecurringTimeSlotRequest.SlotTime(LocalTime.of(20, 0), LocalTime.of(21, 0)),
+                new RecurringTimeSlotRequest.SlotTime(LocalTime.of(23, 30), LocalTime.of(0, 30))
+        ));
+
+        List<RecurringSlotPlanner.Candidate> candidates = RecurringSlotPlanner.expand(rule);
+
+        assertEquals(8, candidates.size());
+        assertEquals(monday.atTime(20, 0), candidates.get(0).start());
+        // Horário que cruza a meia-noite termina no dia seguinte
+        assertEquals(monday.plusDays(1).atTime(0, 30), candidates.get(1).end());
+        assertEquals(monday.plusDays(2).atTime(20, 0), candidates.get(2).start());
+        assertEquals(monday.plusDays(9).atTime(23, 30), candidates.get(7).start());
+    }
+
+    @Test
+    void testPlanReportsPastConflictsAndOverlapsBetweenCandidates() {
+        LocalDateTime base = monday.atTime(20, 0);
+        List<RecurringSlotPlanner.Candidate> candidates = List.of(
+                new RecurringSlotPlanner.Candidate(base.minusDays(7), base.minusDays(7).plusHours(1)),
+                new RecurringSlotPlanner.Candidate(base, base.plusHours(1)),
+                new RecurringSlotPlanner.Candidate(base.plusMinutes(30), base.plusMinutes(90)),
+                new RecurringSlotPlanner.Candidate(base.plusDays(1), base.plusDays(1).plusHours(1))
+        );
+        IntervalSet existing = new IntervalSet();
+        existing.put("existing", base.plusDays(1).plusMinutes(30), base.plusDays(1).plusHours(2));
+
+        List<Outcome> outcomes = RecurringSlotPlanner.plan(candidates, existing, base.minusDays(1));
+
+        assertEquals(List.of(Outcome.PAST, Outcome.ACCEPTED, Outcome.CONFLICT, Outcome.CONFLICT), outcomes);
+    }
+}
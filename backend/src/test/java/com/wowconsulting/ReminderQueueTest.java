@@ -0,0 +1,135 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.model.Appointment;
+import com.wowconsulting.model.UserSummary;
+import com.wowconsulting.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReminderQueueTest {
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private ReminderQueue reminderQueue;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(reminderQueue, "leadMinutes", 120L);
+    }
+
+    @Test
+    void testRemindersNotMarkedWhenTheDatabaseFailsStayQueued() {
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        loadAll(appointment("a1", soon), appointment("a2", soon.plusMinutes(1)), appointment("a3", soon.plusMinutes(2)));
+        when(appointmentRepository.markReminderSent(eq("a1"), any(LocalDateTime.class))).thenReturn(true);
+        when(appointmentRepository.markReminderSent(eq("a2"), any(LocalDateTime.class)))
+                .thenThrow(new RuntimeException("timeout"))
+                .thenReturn(true);
+        when(appointmentRepository.markReminderSent(eq("a3"), any(LocalDateTime.class))).thenReturn(true);
+        List<String> enqueued = new ArrayList<>();
+
+        assertEquals(List.of("a1"), ids(reminderQueue.deliverDueReminders(record(enqueued), reminder -> fail())));
+        assertEquals(2, reminderQueue.size());
+
+        // A próxima varredura entrega os que ficaram, sem depender da sincronização incremental
+        when(appointmentRepository.findByUpdatedAtAfter(any(LocalDateTime.class))).thenReturn(List.of());
+        assertEquals(List.of("a2", "a3"), ids(reminderQueue.deliverDueReminders(record(enqueued), reminder -> fail())));
+        assertEquals(0, reminderQueue.size());
+        assertEquals(List.of("a1", "a2", "a2", "a3"), enqueued);
+    }
+
+    @Test
+    void testRemindersAreNotMarkedBeforeTheOutboxAcceptsThem() {
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        loadAll(appointment("a1", soon), appointment("a2", soon.plusMinutes(1)), appointment("a3", soon.plusMinutes(2)));
+        when(appointmentRepository.markReminderSent(anyString(), any(LocalDateTime.class))).thenReturn(true);
+        List<String> enqueued = new ArrayList<>();
+        Predicate<ReminderQueue.DueReminder> failingOnA2 = reminder -> {
+            if (reminder.appointmentId().equals("a2") && !enqueued.contains("a2-failed")) {
+                enqueued.add("a2-failed");
+                throw new RuntimeException("outbox indisponível");
+            }
+            enqueued.add(reminder.appointmentId());
+            return true;
+        };
+
+        assertEquals(List.of("a1"), ids(reminderQueue.deliverDueReminders(failingOnA2, reminder -> fail())));
+        verify(appointmentRepository, never()).markReminderSent(eq("a2"), any(LocalDateTime.class));
+        verify(appointmentRepository, never()).markReminderSent(eq("a3"), any(LocalDateTime.class));
+        assertEquals(2, reminderQueue.size());
+
+        when(appointmentRepository.findByUpdatedAtAfter(any(LocalDateTime.class))).thenReturn(List.of());
+        assertEquals(List.of("a2", "a3"), ids(reminderQueue.deliverDueReminders(failingOnA2, reminder -> fail())));
+    }
+
+    @Test
+    void testReminderForAppointmentNoLongerEligibleIsWithdrawn() {
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        loadAll(appointment("a1", soon));
+        when(appointmentRepository.markReminderSent(eq("a1"), any(LocalDateTime.class))).thenReturn(false);
+        List<String> withdrawn = new ArrayList<>();
+
+        List<ReminderQueue.DueReminder> delivered = reminderQueue.deliverDueReminders(
+                reminder -> true, reminder -> withdrawn.add(reminder.appointmentId()));
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(List.of("a1"), withdrawn);
+    }
+
+    @Test
+    void testInvalidateDuringSyncKeepsFullReloadPending() {
+        loadAll();
+        reminderQueue.deliverDueReminders(reminder -> true, reminder -> fail());
+
+        // O change stream invalida a fila enquanto a sincronização incremental está lendo do banco
+        when(appointmentRepository.findByUpdatedAtAfter(any(LocalDateTime.class))).thenAnswer(invocation -> {
+            reminderQueue.onAppointmentChanged(new MongoChangeEvent<>(Appointment.class,
+                    MongoChangeEvent.Operation.INVALIDATE, null, null, Instant.now()));
+            return List.of();
+        });
+        reminderQueue.deliverDueReminders(reminder -> true, reminder -> fail());
+        reminderQueue.deliverDueReminders(reminder -> true, reminder -> fail());
+
+        verify(appointmentRepository, times(2)).findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter(
+                eq(Appointment.AppointmentStatus.SCHEDULED), any(LocalDateTime.class));
+    }
+
+    private void loadAll(Appointment... appointments) {
+        when(appointmentRepository.findByStatusAndReminderSentAtIsNullAndScheduledTimeAfter(
+                eq(Appointment.AppointmentStatus.SCHEDULED), any(LocalDateTime.class)))
+                .thenReturn(List.of(appointments));
+    }
+
+    private static Predicate<ReminderQueue.DueReminder> record(List<String> enqueued) {
+        return reminder -> enqueued.add(reminder.appointmentId());
+    }
+
+    private static List<String> ids(List<ReminderQueue.DueReminder> reminders) {
+        return reminders.stream().map(ReminderQueue.DueReminder::appointmentId).toList();
+    }
+
+    private Appointment appointment(String id, LocalDateTime scheduledTime) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        appointment.setScheduledTime(scheduledTime);
+        appointment.setUserSummary(new UserSummary("u1", "discord-1", "user", null));
+        return appointment;
+    }
+}
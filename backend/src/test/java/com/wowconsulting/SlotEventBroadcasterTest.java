@@ -0,0 +1,248 @@
+package com.wowconsulting.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.MongoChangeEvent.Operation;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.TimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotEventBroadcasterTest {
+
+    private SlotEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SlotEventBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "objectMapper",
+                new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(broadcaster, "queueCapacity", 2);
+        ReflectionTestUtils.setField(broadcaster, "executor", (Executor) Runnable::run);
+    }
+
+    @Test
+    void testFansOutCompactDeltaAndDropsBrokenSubscribers() {
+        RecordingEmitter healthy = register(new RecordingEmitter(false));
+        RecordingEmitter broken = register(new RecordingEmitter(true));
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 10, 20, 0);
+        TimeSlot slot = new TimeSlot(start, start.plusHours(1), null);
+        slot.setId("s1");
+        broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.of(ChangeType.TAKEN, slot));
+        broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted("s2"));
+
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertEquals(2, healthy.payloads.size());
+        assertEquals("{\"type\":\"taken\",\"id\":\"s1\",\"start\":\"2030-01-10T20:00:00\","
+                + "\"end\":\"2030-01-10T21:00:00\",\"available\":false}", healthy.payloads.get(0));
+        assertEquals("{\"type\":\"deleted\",\"id\":\"s2\"}", healthy.payloads.get(1));
+        assertTrue(broken.payloads.isEmpty());
+    }
+
+    @Test
+    void testRejectsSubscribersOverLimit() {
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        assertThrows(IllegalStateException.class, () -> broadcaster.subscribe());
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testSlowSubscriberIsDroppedWithoutDelayingOthers() throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(broadcaster, "executor", senders);
+        try {
+            BlockingHandler handler = new BlockingHandler();
+            broadcaster.register(handler.emitter());
+            RecordingEmitter healthy = register(new RecordingEmitter(false));
+
+            // O primeiro evento prende o envio do cliente lento (segurando o lock do emitter);
+            // os seguintes enchem a fila dele (capacidade 2) e o derrubam sem bloquear quem publica
+            broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted("s1"));
+            assertTrue(handler.sending.await(5, TimeUnit.SECONDS));
+            awaitPayloads(healthy, 1);
+            for (int i = 2; i <= 5; i++) {
+                String id = "s" + i;
+                assertTimeoutPreemptively(Duration.ofSeconds(2),
+                        () -> broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted(id)));
+                awaitPayloads(healthy, i);
+            }
+
+            assertEquals(5, healthy.payloads.size());
+            assertEquals(1, broadcaster.getSubscriberCount());
+
+            // Quando a escrita presa retorna, a thread de envio encerra o emitter e volta ao pool
+            handler.release.countDown();
+            assertTrue(handler.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(1, handler.sends.get());
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHeartbeatSkipsStuckSenderWithoutWaitingOnIt() throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(broadcaster, "executor", senders);
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMillis", 0L);
+        try {
+            BlockingHandler handler = new BlockingHandler();
+            broadcaster.register(handler.emitter());
+            RecordingEmitter healthy = register(new RecordingEmitter(false));
+
+            broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted("s1"));
+            assertTrue(handler.sending.await(5, TimeUnit.SECONDS));
+
+            // O heartbeat roda na thread compartilhada do @Scheduled: não pode esperar pelo lock do emitter preso
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> broadcaster.heartbeat());
+            assertEquals(1, broadcaster.getSubscriberCount());
+
+            broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted("s2"));
+            awaitPayloads(healthy, 2);
+            assertEquals(2, healthy.payloads.size());
+
+            handler.release.countDown();
+            assertTrue(handler.completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRemoteChangesReachSubscribersButLocalEchoesDoNot() {
+        ReflectionTestUtils.setField(broadcaster, "changeStreamsEnabled", true);
+        RecordingEmitter subscriber = register(new RecordingEmitter(false));
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 10, 20, 0);
+        TimeSlot local = new TimeSlot(start, start.plusHours(1), null);
+        local.setId("s1");
+        local.setUpdatedAt(start.minusDays(1));
+        broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.of(ChangeType.TAKEN, local));
+        broadcaster.onTimeSlotChanged(TimeSlotChangedEvent.deleted("s2"));
+
+        // O change stream devolve as próprias escritas desta instância: já foram difundidas
+        broadcaster.onDocumentChanged(change(Operation.UPSERT, "s1", local));
+        broadcaster.onDocumentChanged(change(Operation.DELETE, "s2", null));
+        assertEquals(2, subscriber.payloads.size());
+
+        // Escritas de outra instância (updatedAt diferente, ou horário sem alteração local) são repassadas
+        TimeSlot remote = new TimeSlot(start, start.plusHours(1), null);
+        remote.setId("s1");
+        remote.setUpdatedAt(start.minusHours(1));
+        broadcaster.onDocumentChanged(change(Operation.UPSERT, "s1", remote));
+        broadcaster.onDocumentChanged(change(Operation.DELETE, "s3", null));
+        broadcaster.onDocumentChanged(change(Operation.INVALIDATE, null, null));
+
+        assertEquals(4, subscriber.payloads.size());
+        assertEquals("{\"type\":\"updated\",\"id\":\"s1\",\"start\":\"2030-01-10T20:00:00\","
+                + "\"end\":\"2030-01-10T21:00:00\",\"available\":true}", subscriber.payloads.get(2));
+        assertEquals("{\"type\":\"deleted\",\"id\":\"s3\"}", subscriber.payloads.get(3));
+    }
+
+    private static MongoChangeEvent<TimeSlot> change(Operation operation, String id, TimeSlot slot) {
+        return new MongoChangeEvent<>(TimeSlot.class, operation, id, slot, Instant.now());
+    }
+
+    private static void awaitPayloads(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.payloads.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private RecordingEmitter register(RecordingEmitter emitter) {
+        broadcaster.register(emitter);
+        return emitter;
+    }
+
+    // SseEmitter real ligado a um handler no lugar do do Spring MVC: send/completeWithError passam pelo
+    // lock do emitter, e a escrita fica bloqueada até release, como em um cliente com a janela TCP cheia
+    private static class BlockingHandler implements InvocationHandler {
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final AtomicInteger sends = new AtomicInteger();
+
+        SseEmitter emitter() throws ClassNotFoundException {
+            Class<?> handlerType = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+            Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType}, this);
+            SseEmitter emitter = new SseEmitter();
+            ReflectionTestUtils.invokeMethod(emitter, "initialize", handler);
+            return emitter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "send" -> {
+                    sends.incrementAndGet();
+                    sending.countDown();
+                    release.await();
+                }
+                case "completeWithError" -> completed.countDown();
+                case "toString" -> {
+                    return "BlockingHandler";
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> {
+                    // Callbacks de timeout/erro/conclusão
+                }
+            }
+            return null;
+        }
+    }
+
+    // Guarda só os dados dos eventos "slot" (ignora comentários de heartbeat/conexão)
+    private static class RecordingEmitter extends SseEmitter {
+        private final boolean failing;
+        private final List<String> payloads = new CopyOnWriteArrayList<>();
+
+        RecordingEmitter(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().stream()
+                    .map(part -> part.getData())
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .filter(data -> data.startsWith("{"))
+                    .forEach(payloads::add);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.model.Appointment.AppointmentStatus;
+import com.wowconsulting.model.ReconciliationRun;
+import com.wowconsulting.model.ReconciliationRun.Status;
+import com.wowconsulting.repository.AppointmentRepository;
+import com.wowconsulting.repository.ReconciliationRunRepository;
+import com.wowconsulting.repository.TimeSlotRepository;
+import com.wowconsulting.repository.TimeSlotRepositoryCustom.AppointmentRef;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlotReconciliationServiceTest {
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private ReconciliationRunRepository runRepository;
+
+    @Mock
+    private TimeSlotAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private LeasedJobRunner jobRunner;
+
+    @InjectMocks
+    private SlotReconciliationService reconciliationService;
+
+    private final LocalDateTime lastHour = LocalDateTime.now().minusHours(1);
+    private final List<AppointmentRef> refs = List.of(
+            new AppointmentRef("s1", "a1", lastHour),
+            new AppointmentRef("s2", "a2", lastHour),
+            new AppointmentRef("s3", "a3", lastHour));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(reconciliationService, "batchSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "missingGraceMillis", 600000L);
+        doAnswer(invocation -> {
+            invocation.<Consumer<LeasedJobRunner.Lease>>getArgument(2)
+                    .accept(new LeasedJobRunner.Lease(SlotReconciliationService.JOB, 1));
+            return true;
+        }).when(jobRunner).runExclusive(eq(SlotReconciliationService.JOB), any(Duration.class), any(Consumer.class));
+        when(timeSlotRepository.streamAppointmentRefs()).thenAnswer(invocation -> refs.stream());
+        // a1 ativo, a2 cancelado, a3 não existe mais
+        when(appointmentRepository.findStatusesByIds(List.of("a1", "a2")))
+                .thenReturn(Map.of("a1", AppointmentStatus.SCHEDULED, "a2", AppointmentStatus.CANCELLED));
+        when(appointmentRepository.findStatusesByIds(List.of("a3"))).thenReturn(Map.of());
+    }
+
+    @Test
+    void testReconcileFixesServerSideAndReleasesStaleAppointments() {
+        when(timeSlotRepository.fixUnavailableWithoutAppointment(false)).thenReturn(4L);
+        when(timeSlotRepository.fixAvailableWithAppointment(false)).thenReturn(1L);
+        ReconciliationRun run = new ReconciliationRun(false, "test");
+
+        reconciliationService.execute(run);
+
+        assertEquals(Status.COMPLETED, run.getStatus());
+        assertEquals(4, run.getUnavailableWithoutAppointment());
+        assertEquals(1, run.getAvailableWithAppointment());
+        assertEquals(1, run.getCancelledAppointment());
+        assertEquals(1, run.getMissingAppointment());
+        assertEquals(3, run.getScannedBookedSlots());
+        verify(timeSlotRepository).releaseSlots(List.of(new AppointmentRef("s2", "a2", lastHour)));
+        verify(timeSlotRepository).releaseSlots(List.of(new AppointmentRef("s3", "a3", lastHour)));
+        verify(availabilityIndex).rebuild();
+        verify(timeSlotRepository, never()).findAll();
+    }
+
+    @Test
+    void testJustClaimedSlotIsNotReleasedBeforeItsAppointmentIsInserted() {
+        // Horário reservado agora; o insert do agendamento ainda não aconteceu
+        AppointmentRef claimed = new AppointmentRef("s4", "a4", LocalDateTime.now());
+        when(timeSlotRepository.streamAppointmentRefs()).thenAnswer(invocation -> Stream.of(claimed));
+        when(appointmentRepository.findStatusesByIds(List.of("a4"))).thenReturn(Map.of());
+        ReconciliationRun run = new ReconciliationRun(false, "test");
+
+        reconciliationService.execute(run);
+
+        assertEquals(Status.COMPLETED, run.getStatus());
+        assertEquals(0, run.getMissingAppointment());
+        assertEquals(1, run.getScannedBookedSlots());
+        verify(timeSlotRepository).releaseSlots(List.of());
+    }
+
+    @Test
+    void testDryRunOnlyCounts() {
+        when(timeSlotRepository.fixUnavailableWithoutAppointment(true)).thenReturn(2L);
+        ReconciliationRun run = new ReconciliationRun(true, "test");
+
+        reconciliationService.execute(run);
+
+        assertEquals(Status.COMPLETED, run.getStatus());
+        assertEquals(4, run.getTotalFixed());
+        verify(timeSlotRepository, never()).releaseSlots(anyList());
+        verify(availabilityIndex, never()).rebuild();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSkippedWhenAnotherInstanceHoldsTheLease() {
+        when(jobRunner.runExclusive(eq(SlotReconciliationService.JOB), any(Duration.class), any(Consumer.class)))
+                .thenReturn(false);
+        ReconciliationRun run = new ReconciliationRun(false, "test");
+
+        reconciliationService.execute(run);
+
+        assertEquals(Status.SKIPPED, run.getStatus());
+        verify(runRepository).save(run);
+        verifyNoInteractions(timeSlotRepository);
+    }
+}
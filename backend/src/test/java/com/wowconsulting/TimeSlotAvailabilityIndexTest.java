@@ -0,0 +1,114 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.MongoChangeEvent.Operation;
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.event.TimeSlotChangedEvent.ChangeType;
+import com.wowconsulting.model.TimeSlot;
+import com.wowconsulting.repository.TimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimeSlotAvailabilityIndexTest {
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Spy
+    private CollectionVersions collectionVersions = new CollectionVersions();
+
+    @InjectMocks
+    private TimeSlotAvailabilityIndex index;
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void testMissBeforeLoad() {
+        assertTrue(index.findAvailableAfter(LocalDateTime.now()).isEmpty());
+        assertEquals(1, index.getStats().misses());
+    }
+
+    @Test
+    void testServesOrderedSlotsAndAppliesChanges() {
+        TimeSlot later = slot("b", base.plusHours(3));
+        TimeSlot earlier = slot("a", base);
+        when(timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(any()))
+                .thenReturn(List.of(earlier, later));
+        String versionBeforeLoad = collectionVersions.timeSlotsVersion();
+        index.rebuild();
+        // O snapshot pode trazer escritas de fora: ETags emitidos antes do rebuild deixam de valer
+        assertNotEquals(versionBeforeLoad, collectionVersions.timeSlotsVersion());
+        assertTrue(index.isServing());
+
+        List<TimeSlot> result = index.findAvailableAfter(LocalDateTime.now()).orElseThrow();
+        assertEquals(List.of("a", "b"), result.stream().map(TimeSlot::getId).toList());
+
+        index.onTimeSlotChanged(TimeSlotChangedEvent.of(ChangeType.TAKEN, earlier));
+        index.onTimeSlotChanged(TimeSlotChangedEvent.of(ChangeType.CREATED, slot("c", base.plusHours(1))));
+
+        result = index.findAvailableAfter(LocalDateTime.now()).orElseThrow();
+        assertEquals(List.of("c", "b"), result.stream().map(TimeSlot::getId).toList());
+
+        List<TimeSlot> sameDay = index.findAvailableBetween(base.toLocalDate().atStartOfDay(),
+                base.toLocalDate().atTime(23, 59, 59)).orElseThrow();
+        assertEquals(2, sameDay.size());
+
+        TimeSlotAvailabilityIndex.Stats stats = index.getStats();
+        assertEquals(1, stats.rebuilds());
+        assertEquals(3, stats.hits());
+        assertEquals(0, stats.misses());
+    }
+
+    @Test
+    void testUpdateMovesSlot() {
+        TimeSlot slot = slot("a", base);
+        when(timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(any())).thenReturn(List.of(slot));
+        index.rebuild();
+
+        TimeSlot moved = slot("a", base.plusDays(1));
+        index.onTimeSlotChanged(TimeSlotChangedEvent.of(ChangeType.UPDATED, moved));
+
+        assertTrue(index.findAvailableBetween(base.toLocalDate().atStartOfDay(), base.toLocalDate().atTime(23, 59, 59))
+                .orElseThrow().isEmpty());
+        assertEquals(1, index.getStats().size());
+    }
+
+    @Test
+    void testAppliesChangesFromOtherInstances() {
+        TimeSlot taken = slot("a", base);
+        when(timeSlotRepository.findByIsAvailableTrueAndStartTimeAfterOrderByStartTime(any()))
+                .thenReturn(List.of(taken, slot("b", base.plusHours(2))));
+        index.rebuild();
+
+        taken.setAvailable(false);
+        index.onDocumentChanged(new MongoChangeEvent<>(TimeSlot.class, Operation.UPSERT, "a", taken, Instant.now()));
+        index.onDocumentChanged(new MongoChangeEvent<>(TimeSlot.class, Operation.UPSERT, "c", slot("c", base.plusHours(1)), Instant.now()));
+        index.onDocumentChanged(new MongoChangeEvent<>(TimeSlot.class, Operation.DELETE, "b", null, Instant.now()));
+
+        List<TimeSlot> result = index.findAvailableAfter(LocalDateTime.now()).orElseThrow();
+        assertEquals(List.of("c"), result.stream().map(TimeSlot::getId).toList());
+    }
+
+    private TimeSlot slot(String id, LocalDateTime start) {
+        TimeSlot slot = new TimeSlot(start, start.plusHours(1), null);
+        slot.setId(id);
+        return slot;
+    }
+}
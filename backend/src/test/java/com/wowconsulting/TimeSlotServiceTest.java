@@ -0,0 +1,69 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.TimeSlotChangedEvent;
+import com.wowconsulting.repository.TimeSlotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimeSlotServiceTest {
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TimeSlotService timeSlotService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(timeSlotService, "cleanupBatchSize", 2);
+        ReflectionTestUtils.setField(timeSlotService, "cleanupMaxBatches", 10);
+        ReflectionTestUtils.setField(timeSlotService, "cleanupBatchPauseMillis", 0L);
+    }
+
+    @Test
+    void testCleanupRemovesInBoundedBatchesUntilExhausted() {
+        when(timeSlotRepository.deleteExpiredAvailable(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of("a", "b"))
+                .thenReturn(List.of("c", "d"))
+                .thenReturn(List.of("e"));
+        AtomicInteger betweenBatches = new AtomicInteger();
+
+        int removed = timeSlotService.deleteExpiredEmptyTimeSlots(betweenBatches::incrementAndGet);
+
+        assertEquals(5, removed);
+        assertEquals(2, betweenBatches.get());
+        verify(timeSlotRepository, times(3)).deleteExpiredAvailable(any(LocalDateTime.class), eq(2));
+        verify(eventPublisher, times(5)).publishEvent(any(TimeSlotChangedEvent.class));
+        assertEquals(5.0, meterRegistry.get("timeslots.cleanup.deleted").summary().totalAmount());
+    }
+
+    @Test
+    void testCleanupStopsAtMaxBatches() {
+        ReflectionTestUtils.setField(timeSlotService, "cleanupMaxBatches", 2);
+        when(timeSlotRepository.deleteExpiredAvailable(any(LocalDateTime.class), eq(2))).thenReturn(List.of("a", "b"));
+
+        assertEquals(4, timeSlotService.deleteExpiredEmptyTimeSlots());
+        verify(timeSlotRepository, times(2)).deleteExpiredAvailable(any(LocalDateTime.class), eq(2));
+    }
+}
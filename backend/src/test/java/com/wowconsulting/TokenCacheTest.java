@@ -0,0 +1,136 @@
+package com.wowconsulting.service;
+
+import com.wowconsulting.event.MongoChangeEvent;
+import com.wowconsulting.event.MongoChangeEvent.Operation;
+import com.wowconsulting.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private TokenCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new TokenCache();
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 3);
+        ReflectionTestUtils.setField(tokenCache, "ttlMillis", 300000L);
+    }
+
+    @Test
+    void testEntryExpiresWithTokenOrTtl() throws InterruptedException {
+        tokenCache.put("t1", "d1", expiresIn(50), user("u1", "d1"));
+        ReflectionTestUtils.setField(tokenCache, "ttlMillis", 50L);
+        tokenCache.put("t2", "d2", expiresIn(300000), user("u2", "d2"));
+        assertTrue(tokenCache.get("t1").isPresent());
+        assertTrue(tokenCache.get("t2").isPresent());
+
+        // Vale o que vencer primeiro: a expiração do token (t1) ou o TTL do cache (t2)
+        Thread.sleep(80);
+        assertTrue(tokenCache.get("t1").isEmpty());
+        assertTrue(tokenCache.get("t2").isEmpty());
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void testAlreadyExpiredTokenIsNotCached() {
+        tokenCache.put("t1", "d1", expiresIn(-1000), user("u1", "d1"));
+
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void testFullCacheEvictsEntriesThatExpireFirst() {
+        tokenCache.put("t1", "d1", expiresIn(60000), user("u1", "d1"));
+        tokenCache.put("t2", "d2", expiresIn(10000), user("u2", "d2"));
+        tokenCache.put("t3", "d3", expiresIn(120000), user("u3", "d3"));
+
+        tokenCache.put("t4", "d4", expiresIn(90000), user("u4", "d4"));
+
+        assertEquals(3, tokenCache.size());
+        assertTrue(tokenCache.get("t2").isEmpty());
+        assertTrue(tokenCache.get("t1").isPresent());
+        assertTrue(tokenCache.get("t3").isPresent());
+        assertTrue(tokenCache.get("t4").isPresent());
+    }
+
+    @Test
+    void testInvalidateUserDropsAllOfItsTokens() {
+        tokenCache.put("t1", "d1", expiresIn(60000), user("u1", "d1"));
+        tokenCache.put("t2", "d1", expiresIn(60000), user("u1", "d1"));
+        tokenCache.put("t3", "d2", expiresIn(60000), user("u2", "d2"));
+
+        tokenCache.invalidateUser("d1");
+
+        assertTrue(tokenCache.get("t1").isEmpty());
+        assertTrue(tokenCache.get("t2").isEmpty());
+        assertTrue(tokenCache.get("t3").isPresent());
+    }
+
+    @Test
+    void testChangeStreamDropsChangedUserAndInvalidateClearsAll() {
+        tokenCache.put("t1", "d1", expiresIn(60000), user("u1", "d1"));
+        tokenCache.put("t2", "d2", expiresIn(60000), user("u2", "d2"));
+
+        tokenCache.onUserChanged(change(Operation.UPSERT, "u1"));
+        assertTrue(tokenCache.get("t1").isEmpty());
+        assertTrue(tokenCache.get("t2").isPresent());
+
+        tokenCache.onUserChanged(change(Operation.INVALIDATE, null));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void testPurgeRemovesOnlyExpiredEntries() throws InterruptedException {
+        tokenCache.put("t1", "d1", expiresIn(50), user("u1", "d1"));
+        tokenCache.put("t2", "d2", expiresIn(60000), user("u2", "d2"));
+
+        Thread.sleep(80);
+        tokenCache.purgeExpired();
+
+        assertEquals(1, tokenCache.size());
+        assertTrue(tokenCache.get("t2").isPresent());
+    }
+
+    @Test
+    void testCallersNeverShareTheCachedInstance() {
+        User original = user("u1", "d1");
+        original.setRoles(new ArrayList<>(List.of("member-role")));
+        tokenCache.put("t1", "d1", expiresIn(60000), original);
+
+        // Alterações feitas por quem gravou ou por quem leu não chegam ao cache
+        original.setAdmin(true);
+        User first = tokenCache.get("t1").orElseThrow();
+        first.getRoles().add("admin-role");
+        first.setUsername("alterado");
+
+        User second = tokenCache.get("t1").orElseThrow();
+        assertNotSame(first, second);
+        assertFalse(second.isAdmin());
+        assertEquals("user-u1", second.getUsername());
+        assertEquals(List.of("member-role"), second.getRoles());
+        assertEquals("u1", second.getId());
+    }
+
+    private static Date expiresIn(long millis) {
+        return new Date(System.currentTimeMillis() + millis);
+    }
+
+    private static User user(String id, String discordId) {
+        User user = new User(discordId, "user-" + id, "0001");
+        user.setId(id);
+        return user;
+    }
+
+    private static MongoChangeEvent<User> change(Operation operation, String id) {
+        return new MongoChangeEvent<>(User.class, operation, id, null, Instant.now());
+    }
+}